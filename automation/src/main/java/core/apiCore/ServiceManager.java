@@ -3,6 +3,8 @@ package core.apiCore;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.testng.SkipException;
@@ -10,12 +12,16 @@ import org.testng.SkipException;
 import core.apiCore.driver.ApiTestDriver;
 import core.apiCore.helpers.CsvReader;
 import core.apiCore.helpers.DataHelper;
+import core.apiCore.helpers.JsonDocument;
+import core.apiCore.helpers.ParameterTemplate;
+import core.apiCore.helpers.XmlHelper;
 import core.apiCore.interfaces.Authentication;
 import core.apiCore.interfaces.AzureInterface;
 import core.apiCore.interfaces.KafkaInterface;
 import core.apiCore.interfaces.RabbitMqInterface;
 import core.apiCore.interfaces.RestApiInterface;
 import core.apiCore.interfaces.ServiceBusInterface;
+import core.apiCore.interfaces.TestBrokerInterface;
 import core.apiCore.interfaces.SqlInterface;
 import core.apiCore.interfaces.TestPrepare;
 import core.helpers.Helper;
@@ -28,7 +34,7 @@ import core.uiCore.driverProperties.driverType.DriverType;
 import core.uiCore.drivers.AbstractDriverTestNG;
 
 public class ServiceManager {
-	private static final String AUTHENTICATION = "AUTHENTICATION";
+	public static final String AUTHENTICATION = "AUTHENTICATION";
 	public static final String SERVICE_TEST_RUNNER_ID = "ServiceTestRunner"; // matches the name of the service test
 																				// runner class
 	private static final String RESTFULL_API_INTERFACE = "RESTfulAPI";
@@ -37,7 +43,8 @@ public class ServiceManager {
 	private static final String RABBIT_MQ_INTERFACE = "RABBITMQ";
 	private static final String KAFKA_INTERFACE = "KAFKA";
 	private static final String SERVICEBUS_INTERFACE = "SERVICEBUS";
-	private static final String TEST_PREPARE_INTERFACE = "TestPrepare";
+	private static final String TEST_BROKER_INTERFACE = "TESTBROKER";
+	public static final String TEST_PREPARE_INTERFACE = "TestPrepare";
 	public static final String EXTERNAL_INTERFACE = "EXTERNAL";
 
 	// test file for before/after class/suite
@@ -77,6 +84,9 @@ public class ServiceManager {
 
 	public static final String DEPENDS_ON_TEST = "DEPENDS_ON_TEST";
 
+	// key: parent test id. guards csv file level state when rows run in parallel
+	private static final Map<String, Object> parentLocks = new ConcurrentHashMap<String, Object>();
+
 	/**
 	 * included generated interface from the client as well as existing interfaces
 	 * @throws Exception
@@ -95,6 +105,25 @@ public class ServiceManager {
 			runInterface(TestObject.getTestInfo().activeServiceObject);
 	}
 
+	/**
+	 * clears per thread state of the interfaces, eg. parsed json responses And
+	 * rabbitMq channels. called at test end
+	 */
+	public static void clearThreadState() {
+		JsonDocument.clear();
+		RabbitMqInterface.closeThreadChannel();
+	}
+
+	/**
+	 * clears per thread parsers And buffers, eg. xml parsers And template render
+	 * buffers. called at the end of rows running on virtual threads. platform
+	 * threads keep them for reuse by the next test
+	 */
+	public static void clearThreadCaches() {
+		XmlHelper.clear();
+		ParameterTemplate.clear();
+	}
+
 	public static void runInterface(ServiceObject serviceObject) throws Exception {
 		runCsvInterface(serviceObject);
 	}
@@ -122,6 +151,9 @@ public class ServiceManager {
 		case SERVICEBUS_INTERFACE:
 			ServiceBusInterface.testServicebusInterface(serviceObject);
 			break;
+		case TEST_BROKER_INTERFACE:
+			TestBrokerInterface.testBrokerInterface(serviceObject);
+			break;
 		case TEST_PREPARE_INTERFACE:
 			TestPrepare.TestPrepareInterface(serviceObject);
 			break;
@@ -134,7 +166,7 @@ public class ServiceManager {
 			// if only description is set, the log the description
 			if(serviceObject.getDescription().isEmpty())
 				Helper.assertFalse("no interface found: " + serviceObject.getInterfaceType() + ". Options:"
-					+ "Authentication, RESTfulAPI, SQLDB, RABBITMQ, KAFKA, SERVICEBUS, EXTERNAL");
+					+ "Authentication, RESTfulAPI, SQLDB, RABBITMQ, KAFKA, SERVICEBUS, TESTBROKER, EXTERNAL");
 			break;
 		}
 	}
@@ -147,6 +179,14 @@ public class ServiceManager {
 	 */
 	public static void runBeforeCsv(ServiceObject serviceObject) throws Exception {
 
+		// before csv file runs once, other rows of the csv file wait for it to complete
+		synchronized (getParentLock(serviceObject.getParent())) {
+			runBeforeCsvOnce(serviceObject);
+		}
+	}
+
+	private static void runBeforeCsvOnce(ServiceObject serviceObject) throws Exception {
+
 		// return if current test index is not 0
 		boolean isBeforeCsvComplete = (boolean) Config.getParentValue(IS_BASE_BEFORE_CLASS_COMPLETE);
 		if (isBeforeCsvComplete)
@@ -347,9 +387,11 @@ public class ServiceManager {
 		String parent = csvFileName + TestObject.PARENT_PREFIX;
 		serviceObject.withParent(parent);
 
-		// setup before class driver
+		// setup before class driver. parent object is created once when rows run in parallel
 		DriverObject driver = new DriverObject().withDriverType(DriverType.API);
-		new AbstractDriverTestNG().setupWebDriver(serviceObject.getParent(), driver);
+		synchronized (getParentLock(parent)) {
+			new AbstractDriverTestNG().setupWebDriver(serviceObject.getParent(), driver);
+		}
 
 		TestObject.getTestInfo().serviceObject = serviceObject;
 	}
@@ -387,7 +429,8 @@ public class ServiceManager {
 			switch (keyword.key) {
 			case DEPENDS_ON_TEST:
 				String testname = keyword.value.toString();
-				List<TestObject> childTests = ApiTestDriver.getParentTestObject(serviceObject).testObjects;
+				List<TestObject> childTests = new ArrayList<TestObject>(
+						ApiTestDriver.getParentTestObject(serviceObject).testObjects);
 				for (TestObject test : childTests) {
 					boolean isPass = test.caughtThrowable == null;
 					if (test.getTestName().equals(testname) && !isPass)
@@ -400,6 +443,16 @@ public class ServiceManager {
 		}
 	}
 
+	/**
+	 * lock for csv file level state, shared by all rows of the csv file
+	 * 
+	 * @param parent parent test id
+	 * @return
+	 */
+	public static Object getParentLock(String parent) {
+		return parentLocks.computeIfAbsent(parent, key -> new Object());
+	}
+
 	/**
 	 * reset option values to default from config
 	 */
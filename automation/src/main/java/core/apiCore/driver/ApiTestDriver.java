@@ -67,7 +67,8 @@ public class ApiTestDriver {
 		TestObject.initializeTest(testId);
 
 		// pass the parent config And logs to new test. parameters are passed from one
-		// test to another this way
+		// test to another this way. rows running in parallel get a child scope, see
+		// CsvRowScheduler.setRowConfig
 		TestObject.getTestInfo().config = getParentTestObject(serviceObject).config;
 		
 		TestObject.getTestInfo().type = testType.service;
@@ -120,8 +121,12 @@ public class ApiTestDriver {
 		TestObject.getTestInfo().testLogAll = new ArrayList<LogObject>();
 		
 		if(isRunningServiceTest()) {
-			ApiTestDriver.getParentTestObject().testLog.addAll(TestObject.getTestInfo().testLog);
-			TestObject.getTestInfo().testLogAll.addAll(ApiTestDriver.getParentTestObject().testLog);
+			// rows of a csv file can complete in parallel
+			TestObject parent = ApiTestDriver.getParentTestObject();
+			synchronized (parent) {
+				parent.testLog.addAll(TestObject.getTestInfo().testLog);
+				TestObject.getTestInfo().testLogAll.addAll(parent.testLog);
+			}
 		}else
 			TestObject.getTestInfo().testLogAll.addAll(TestObject.getTestInfo().testLog);
 	}
@@ -0,0 +1,487 @@
+package core.apiCore.helpers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.TrustAllStrategy;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.Timeout;
+
+import core.apiCore.ServiceManager;
+import core.apiCore.interfaces.RestApiInterface;
+import core.helpers.Helper;
+import core.helpers.UtilityHelper;
+import core.support.configReader.Config;
+import core.support.logger.TestLog;
+import core.support.objects.ServiceObject;
+import core.support.objects.TestObject;
+import io.restassured.authentication.AuthenticationScheme;
+import io.restassured.authentication.BasicAuthScheme;
+import io.restassured.authentication.NoAuthScheme;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Cookie;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.MultiPartSpecification;
+import io.restassured.specification.RequestSpecification;
+
+/**
+ * non blocking http engine for restful api tests
+ *
+ * requests are built by RestApiInterface as rest assured request
+ * specifications, so csv semantics (headers, query parameters, form And
+ * multipart bodies, cookies) stay the same. requests are sent on a shared
+ * async client: a few io threads serve all requests in flight, connections are
+ * pooled And http/2 is negotiated where the server supports it. responses are
+ * converted to rest assured responses for validation And output params
+ *
+ * a test waits for its own response before validating it. requests overlap
+ * when sent with sendRequestAsync, eg. pagination pages in flight
+ *
+ * config:
+ * api.async.isEnabled: send rest requests with the async engine. default: false
+ * api.async.ioThreads: io reactor threads. default: available processors
+ * api.async.maxConnections: max connections. default: 256
+ * api.async.maxConnectionsPerRoute: max connections per host. default: 64
+ */
+public class AsyncHttpHelper {
+
+	public static final String API_ASYNC_ENABLED = "api.async.isEnabled";
+	public static final String API_ASYNC_IO_THREADS = "api.async.ioThreads";
+	public static final String API_ASYNC_MAX_CONNECTIONS = "api.async.maxConnections";
+	public static final String API_ASYNC_MAX_CONNECTIONS_PER_ROUTE = "api.async.maxConnectionsPerRoute";
+
+	private static final int DEFAULT_TIMEOUT_SECONDS = 60;
+	private static final int DEFAULT_MAX_CONNECTIONS = 256;
+	private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 64;
+
+	// characters kept as is in uri path And query values, besides letters And digits. see rfc 3986
+	private static final String PATH_CHARACTERS = "-._~!$&'()*+,;=:@/";
+	private static final String QUERY_CHARACTERS = "-._~!$'()*+,;:@/?";
+
+	// key: client settings. eg. relaxed https And proxy
+	private static final Map<String, CloseableHttpAsyncClient> clients = new ConcurrentHashMap<String, CloseableHttpAsyncClient>();
+
+	public static boolean isEnabled() {
+		return Config.getBooleanValue(API_ASYNC_ENABLED);
+	}
+
+	/**
+	 * returns true if request can be sent with the async engine. ntlm
+	 * authentication requires the rest assured client
+	 *
+	 * @param request
+	 * @return
+	 */
+	public static boolean isSupported(RequestSpecification request) {
+		if (!(request instanceof FilterableRequestSpecification))
+			return false;
+		AuthenticationScheme auth = ((FilterableRequestSpecification) request).getAuthenticationScheme();
+		return auth == null || auth instanceof NoAuthScheme || auth instanceof BasicAuthScheme;
+	}
+
+	/**
+	 * sends request And waits for the response, up to connect And response
+	 * timeout. no io thread is held while waiting. request is cancelled if the
+	 * wait times out or is interrupted
+	 *
+	 * @param serviceObject
+	 * @param request
+	 * @return
+	 * @throws Exception
+	 */
+	public static Response sendRequest(ServiceObject serviceObject, RequestSpecification request) throws Exception {
+		Future<Response> response = sendRequestAsync(serviceObject, request);
+		int waitSeconds = 2 * getTimeoutSeconds();
+		try {
+			return response.get(waitSeconds, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause() == null ? e : e.getCause();
+			throw new Exception(cause.getMessage(), cause);
+		} catch (TimeoutException e) {
+			response.cancel(true);
+			throw new Exception("no response within " + waitSeconds + " seconds: " + serviceObject.getUriPath(), e);
+		} catch (InterruptedException e) {
+			response.cancel(true);
+			Thread.currentThread().interrupt();
+			throw e;
+		}
+	}
+
+	/**
+	 * sends request without waiting for the response. request And client are
+	 * resolved from config on the calling thread. cancelling the future cancels
+	 * the request
+	 *
+	 * @param serviceObject
+	 * @param request
+	 * @return
+	 * @throws Exception
+	 */
+	public static Future<Response> sendRequestAsync(ServiceObject serviceObject, RequestSpecification request)
+			throws Exception {
+		FilterableRequestSpecification specification = (FilterableRequestSpecification) request;
+		SimpleHttpRequest httpRequest = getHttpRequest(serviceObject, specification);
+		return new ResponseFuture(getClient(httpRequest.getUri().toURL()).execute(httpRequest, null));
+	}
+
+	/**
+	 * closes all async clients
+	 */
+	public static void shutdown() {
+		for (CloseableHttpAsyncClient client : clients.values())
+			client.close(CloseMode.GRACEFUL);
+		clients.clear();
+	}
+
+	/**
+	 * builds http request from rest assured request specification
+	 *
+	 * @param serviceObject
+	 * @param specification
+	 * @return
+	 * @throws Exception
+	 */
+	private static SimpleHttpRequest getHttpRequest(ServiceObject serviceObject,
+			FilterableRequestSpecification specification) throws Exception {
+		SimpleHttpRequest httpRequest = new SimpleHttpRequest(serviceObject.getMethod(),
+				getUri(serviceObject.getUriPath(), specification.getQueryParams()));
+
+		// content type is set with the body
+		String contentTypeHeader = StringUtils.EMPTY;
+		for (io.restassured.http.Header header : specification.getHeaders()) {
+			if (header.getName().equalsIgnoreCase(HttpHeaders.CONTENT_TYPE))
+				contentTypeHeader = header.getValue();
+			else
+				httpRequest.addHeader(header.getName(), header.getValue());
+		}
+
+		List<String> cookies = new ArrayList<String>();
+		for (Cookie cookie : specification.getCookies())
+			cookies.add(cookie.getName() + "=" + StringUtils.defaultString(cookie.getValue()));
+		if (!cookies.isEmpty())
+			httpRequest.addHeader(HttpHeaders.COOKIE, StringUtils.join(cookies, "; "));
+
+		AuthenticationScheme auth = specification.getAuthenticationScheme();
+		if (auth instanceof BasicAuthScheme) {
+			BasicAuthScheme basic = (BasicAuthScheme) auth;
+			String credentials = basic.getUserName() + ":" + basic.getPassword();
+			httpRequest.setHeader("Authorization",
+					"Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+		}
+
+		String contentType = StringUtils.defaultIfBlank(serviceObject.getContentType(), contentTypeHeader);
+		setRequestBody(contentType, specification, httpRequest);
+
+		// requests without body keep the content type header
+		if (httpRequest.getBody() == null && !contentType.isEmpty())
+			httpRequest.setHeader(HttpHeaders.CONTENT_TYPE, contentType);
+		return httpRequest;
+	}
+
+	/**
+	 * request uri with query parameters. query parameters are encoded by
+	 * RestApiInterface.evaluateQueryParameters if api.encoding.parameter is set.
+	 * characters not allowed in a uri are encoded, existing escapes are kept
+	 *
+	 * @param url
+	 * @param queryParameters
+	 * @return
+	 * @throws Exception
+	 */
+	private static URI getUri(String url, Map<String, String> queryParameters) throws Exception {
+		URL aURL = Helper.convertToUrl(url);
+		StringBuilder uri = new StringBuilder();
+		uri.append(aURL.getProtocol()).append("://").append(aURL.getHost());
+		if (aURL.getPort() != -1)
+			uri.append(":").append(aURL.getPort());
+		uri.append(encodeUri(aURL.getPath(), PATH_CHARACTERS));
+
+		String separator = "?";
+		for (Entry<String, String> query : queryParameters.entrySet()) {
+			uri.append(separator).append(encodeUri(query.getKey(), QUERY_CHARACTERS)).append("=")
+					.append(encodeUri(StringUtils.defaultString(query.getValue()), QUERY_CHARACTERS));
+			separator = "&";
+		}
+		return new URI(uri.toString());
+	}
+
+	/**
+	 * percent encodes characters other than letters, digits And allowed
+	 * characters. existing escapes (%XX) are kept, so encoded values are not
+	 * encoded twice
+	 *
+	 * @param value
+	 * @param allowed
+	 * @return
+	 */
+	private static String encodeUri(String value, String allowed) {
+		StringBuilder encoded = new StringBuilder();
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i < bytes.length; i++) {
+			char character = (char) (bytes[i] & 0xFF);
+			boolean isAllowed = character < 0x80
+					&& (Character.isLetterOrDigit(character) || allowed.indexOf(character) != -1);
+			boolean isEscape = character == '%' && i + 2 < bytes.length && isHex(bytes[i + 1])
+					&& isHex(bytes[i + 2]);
+			if (isAllowed || isEscape)
+				encoded.append(character);
+			else
+				encoded.append(String.format("%%%02X", bytes[i] & 0xFF));
+		}
+		return encoded.toString();
+	}
+
+	private static boolean isHex(byte value) {
+		return Character.digit((char) value, 16) != -1;
+	}
+
+	/**
+	 * sets request body: form parameters, multipart or raw body
+	 *
+	 * @param contentType
+	 * @param specification
+	 * @param httpRequest
+	 * @throws Exception
+	 */
+	private static void setRequestBody(String contentType, FilterableRequestSpecification specification,
+			SimpleHttpRequest httpRequest) throws Exception {
+		List<MultiPartSpecification> multiParts = specification.getMultiPartParams();
+		Map<String, String> formParameters = specification.getFormParams();
+
+		// multipart form with files
+		if (!multiParts.isEmpty() || (contentType.contains("multipart") && !formParameters.isEmpty())) {
+			MultipartEntityBuilder builder = MultipartEntityBuilder.create();
+			for (Entry<String, String> parameter : formParameters.entrySet())
+				builder.addTextBody(parameter.getKey(), parameter.getValue());
+			for (MultiPartSpecification part : multiParts) {
+				if (part.getContent() instanceof File)
+					builder.addBinaryBody(part.getControlName(), (File) part.getContent(),
+							ContentType.DEFAULT_BINARY, part.getFileName());
+				else
+					builder.addTextBody(part.getControlName(), String.valueOf(part.getContent()));
+			}
+			HttpEntity entity = builder.build();
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			entity.writeTo(body);
+			httpRequest.setBody(body.toByteArray(), ContentType.parse(entity.getContentType()));
+			return;
+		}
+
+		// url encoded form
+		if (!formParameters.isEmpty()) {
+			httpRequest.setBody(getFormBody(formParameters), getContentType(contentType));
+			return;
+		}
+
+		Object body = specification.getBody();
+		if (body != null)
+			httpRequest.setBody(body.toString(), getContentType(contentType));
+	}
+
+	private static String getFormBody(Map<String, String> formParameters) throws UnsupportedEncodingException {
+		List<String> parameters = new ArrayList<String>();
+		for (Entry<String, String> parameter : formParameters.entrySet())
+			parameters.add(URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8.name()) + "="
+					+ URLEncoder.encode(parameter.getValue(), StandardCharsets.UTF_8.name()));
+		return StringUtils.join(parameters, "&");
+	}
+
+	private static ContentType getContentType(String contentType) {
+		if (StringUtils.isBlank(contentType))
+			return ContentType.TEXT_PLAIN;
+		return ContentType.parse(contentType);
+	}
+
+	/**
+	 * converts http response to rest assured response
+	 *
+	 * @param httpResponse
+	 * @return
+	 */
+	private static Response getResponse(SimpleHttpResponse httpResponse) {
+		List<io.restassured.http.Header> headers = new ArrayList<io.restassured.http.Header>();
+		for (Header header : httpResponse.getHeaders())
+			headers.add(new io.restassured.http.Header(header.getName(), header.getValue()));
+
+		String statusLine = httpResponse.getVersion() + " " + httpResponse.getCode() + " "
+				+ StringUtils.defaultString(httpResponse.getReasonPhrase());
+
+		ResponseBuilder builder = new ResponseBuilder().setStatusCode(httpResponse.getCode())
+				.setStatusLine(statusLine.trim()).setHeaders(new Headers(headers));
+		if (httpResponse.getContentType() != null)
+			builder.setContentType(httpResponse.getContentType().toString());
+
+		byte[] body = httpResponse.getBodyBytes();
+		builder.setBody(body == null ? new byte[0] : body);
+		return builder.build();
+	}
+
+	/**
+	 * async client for current settings. clients are shared by all tests
+	 *
+	 * @param url request url
+	 * @return
+	 * @throws Exception
+	 */
+	private static CloseableHttpAsyncClient getClient(URL url) throws Exception {
+		boolean isRelaxedHttps = Config.getBooleanValue(RestApiInterface.API_USE_RELAXED_HTTPS_VALIDATION);
+		HttpHost proxy = getProxy(url);
+		int timeoutSeconds = getTimeoutSeconds();
+
+		String key = isRelaxedHttps + ":" + proxy + ":" + timeoutSeconds;
+		CloseableHttpAsyncClient client = clients.get(key);
+		if (client != null)
+			return client;
+
+		synchronized (clients) {
+			client = clients.get(key);
+			if (client == null) {
+				client = createClient(isRelaxedHttps, proxy, timeoutSeconds);
+				clients.put(key, client);
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * connect timeout And response timeout
+	 *
+	 * @return
+	 */
+	private static int getTimeoutSeconds() {
+		int timeoutSeconds = Config.getIntValue(ServiceManager.SERVICE_RESPONSE_TIMEOUT_SECONDS);
+		return timeoutSeconds == -1 ? DEFAULT_TIMEOUT_SECONDS : timeoutSeconds;
+	}
+
+	private static CloseableHttpAsyncClient createClient(boolean isRelaxedHttps, HttpHost proxy, int timeoutSeconds)
+			throws Exception {
+		int ioThreads = Config.getIntValue(API_ASYNC_IO_THREADS);
+		if (ioThreads <= 0)
+			ioThreads = Runtime.getRuntime().availableProcessors();
+		int maxConnections = Config.getIntValue(API_ASYNC_MAX_CONNECTIONS);
+		if (maxConnections <= 0)
+			maxConnections = DEFAULT_MAX_CONNECTIONS;
+		int maxConnectionsPerRoute = Config.getIntValue(API_ASYNC_MAX_CONNECTIONS_PER_ROUTE);
+		if (maxConnectionsPerRoute <= 0)
+			maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+
+		PoolingAsyncClientConnectionManagerBuilder connectionManager = PoolingAsyncClientConnectionManagerBuilder
+				.create().setMaxConnTotal(maxConnections).setMaxConnPerRoute(maxConnectionsPerRoute);
+		if (isRelaxedHttps) {
+			SSLContext sslContext = SSLContexts.custom().loadTrustMaterial(TrustAllStrategy.INSTANCE).build();
+			connectionManager.setTlsStrategy(ClientTlsStrategyBuilder.create().setSslContext(sslContext)
+					.setHostnameVerifier(NoopHostnameVerifier.INSTANCE).build());
+		}
+
+		Timeout timeout = Timeout.ofSeconds(timeoutSeconds);
+		HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+				.setConnectionManager(connectionManager.build())
+				.setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(ioThreads).setSoTimeout(timeout).build())
+				.setDefaultRequestConfig(
+						RequestConfig.custom().setConnectTimeout(timeout).setResponseTimeout(timeout).build())
+				.setVersionPolicy(HttpVersionPolicy.NEGOTIATE);
+		if (proxy != null)
+			builder.setProxy(proxy);
+
+		CloseableHttpAsyncClient client = builder.build();
+		client.start();
+		TestLog.ConsoleLog("async http client started with io threads: " + ioThreads);
+		return client;
+	}
+
+	/**
+	 * proxy from config if proxy is required for url host. see
+	 * RestClientRegistry
+	 *
+	 * @param url
+	 * @return null if no proxy
+	 */
+	private static HttpHost getProxy(URL url) {
+		String host = Config.getValue(TestObject.PROXY_HOST);
+		int port = Config.getIntValue(TestObject.PROXY_PORT);
+		if (host.isEmpty() || port == -1)
+			return null;
+		if (!UtilityHelper.isProxyRequired(url))
+			return null;
+
+		String protocol = Config.getValue(TestObject.PROXY_PROTOCOL);
+		if (protocol.equals("http") || protocol.equals("https"))
+			return new HttpHost(protocol, host, port);
+		return new HttpHost(host, port);
+	}
+
+	/**
+	 * converts http response to rest assured response on get
+	 */
+	private static class ResponseFuture implements Future<Response> {
+		private final Future<SimpleHttpResponse> httpResponse;
+
+		ResponseFuture(Future<SimpleHttpResponse> httpResponse) {
+			this.httpResponse = httpResponse;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			return httpResponse.cancel(mayInterruptIfRunning);
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return httpResponse.isCancelled();
+		}
+
+		@Override
+		public boolean isDone() {
+			return httpResponse.isDone();
+		}
+
+		@Override
+		public Response get() throws InterruptedException, ExecutionException {
+			return getResponse(httpResponse.get());
+		}
+
+		@Override
+		public Response get(long timeout, TimeUnit unit)
+				throws InterruptedException, ExecutionException, TimeoutException {
+			return getResponse(httpResponse.get(timeout, unit));
+		}
+	}
+}
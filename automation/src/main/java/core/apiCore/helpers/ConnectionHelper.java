@@ -1,12 +1,28 @@
 package core.apiCore.helpers;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 
+import core.helpers.Helper;
 import core.support.configReader.Config;
 import core.support.logger.TestLog;
 
+/**
+ * shared ssh tunnels
+ *
+ * one session is kept per host, user And remote target, And shared by all
+ * users of the tunnel. users acquire the tunnel And release it when done. the
+ * session is closed when the last user releases it. sessions are kept alive,
+ * And reconnected on the same local port when dropped
+ *
+ * if ssh.lport is not set, a free local port is assigned. urls reference the
+ * assigned port with {ssh.lport}. eg. db.1.url =
+ * jdbc:postgresql://localhost:{ssh.lport}
+ */
 public class ConnectionHelper {
 
 	private static final String SSH_USER = "ssh.user";
@@ -17,47 +33,174 @@ public class ConnectionHelper {
 	private static final String SSH_RHOST = "ssh.rHost";
 	private static final String SSH_RPORT = "ssh.rport";
 
+	public static final String LOCAL_PORT_TOKEN = "{ssh.lport}";
+
+	private static final int DEFAULT_SSH_PORT = 22;
+	private static final int KEEP_ALIVE_INTERVAL_MILLIS = 30000;
+	private static final int KEEP_ALIVE_COUNT_MAX = 3;
+
+	// key: user, host, port, remote host, remote port
+	private static final Map<String, SshTunnel> tunnels = new ConcurrentHashMap<String, SshTunnel>();
+
 	/**
-	 * ssh connection supports port forwarding as well if host is empty, Then return
-	 * if rhost is empty, return for port forwarding
+	 * acquires shared ssh tunnel. tunnel is connected on first use, outside the
+	 * tunnel map. supports port forwarding as well if host is empty, Then return.
+	 * if rhost is empty, no port is forwarded. fails the test if the tunnel does
+	 * not connect
+	 *
+	 * @return tunnel, released when no longer used. null if host is empty
 	 */
-	public static void sshConnect() {
+	public static SshTunnel sshConnect() {
 		String user = Config.getValue(SSH_USER);
 		String password = Config.getValue(SSH_PASSWORD);
 		String host = Config.getValue(SSH_HOST);
 		int port = Config.getIntValue(SSH_PORT);
+		int lport = Config.getIntValue(SSH_LPORT);
+		String rhost = Config.getValue(SSH_RHOST);
+		int rport = Config.getIntValue(SSH_RPORT);
 
 		if (host.isEmpty())
-			return;
+			return null;
+
+		int sshPort = port == -1 ? DEFAULT_SSH_PORT : port;
+		String key = user + "@" + host + ":" + sshPort + "|" + rhost + ":" + rport;
+
+		// count is incremented within compute, so a released tunnel is not reused
+		SshTunnel tunnel = tunnels.compute(key, (value, current) -> {
+			if (current == null)
+				current = new SshTunnel(key, user, password, host, sshPort, lport, rhost, rport);
+			current.users++;
+			return current;
+		});
 
-		Session session = null;
 		try {
-			JSch jsch = new JSch();
-			if (port != -1)
-				session = jsch.getSession(user, host, port);
-			else
-				session = jsch.getSession(user, host);
+			tunnel.ensureConnected();
+		} catch (JSchException e) {
+			tunnel.release();
+			Helper.assertFalse("ssh connection failed: " + e.getMessage());
+		}
+		return tunnel;
+	}
+
+	/**
+	 * closes all tunnels
+	 */
+	public static void closeTunnels() {
+		for (SshTunnel tunnel : tunnels.values())
+			tunnel.disconnect();
+		tunnels.clear();
+	}
+
+	/**
+	 * ssh session with local port forwarded to remote target
+	 */
+	public static class SshTunnel {
+		private final String key;
+		private final String user;
+		private final String password;
+		private final String host;
+		private final int port;
+		private final String rhost;
+		private final int rport;
+
+		private Session session = null;
 
+		// assigned local port, kept on reconnect. 0: assign free port
+		private int localPort;
+
+		// updated within tunnel map compute only
+		private int users = 0;
+
+		private SshTunnel(String key, String user, String password, String host, int port, int lport,
+				String rhost, int rport) {
+			this.key = key;
+			this.user = user;
+			this.password = password;
+			this.host = host;
+			this.port = port;
+			this.localPort = Math.max(lport, 0);
+			this.rhost = rhost;
+			this.rport = rport;
+		}
+
+		/**
+		 * local port of forward. -1 if no port is forwarded
+		 *
+		 * @return
+		 */
+		public synchronized int getLocalPort() {
+			return rhost.isEmpty() ? -1 : localPort;
+		}
+
+		/**
+		 * replaces {ssh.lport} in url with local port
+		 *
+		 * @param url
+		 * @return
+		 */
+		public String replaceLocalPort(String url) {
+			return url.replace(LOCAL_PORT_TOKEN, String.valueOf(getLocalPort()));
+		}
+
+		/**
+		 * reconnects session And forward, if dropped
+		 * 
+		 * @throws JSchException if connection fails
+		 */
+		public synchronized void ensureConnected() throws JSchException {
+			if (session != null && session.isConnected())
+				return;
+
+			try {
+				connect();
+			} catch (JSchException e) {
+				disconnect();
+				throw e;
+			}
+		}
+
+		/**
+		 * releases tunnel. session is closed when no longer used, outside the
+		 * tunnel map
+		 */
+		public void release() {
+			SshTunnel current = tunnels.computeIfPresent(key, (value, tunnel) -> {
+				if (tunnel != this)
+					return tunnel;
+				return --users > 0 ? tunnel : null;
+			});
+			if (current != this)
+				disconnect();
+		}
+
+		private synchronized void connect() throws JSchException {
+			disconnect();
+
+			JSch jsch = new JSch();
+			session = jsch.getSession(user, host, port);
 			session.setPassword(password);
 			session.setConfig("StrictHostKeyChecking", "no");
+			session.setServerAliveInterval(KEEP_ALIVE_INTERVAL_MILLIS);
+			session.setServerAliveCountMax(KEEP_ALIVE_COUNT_MAX);
 			TestLog.ConsoleLog("Establishing Connection...");
 			session.connect();
-			setPortForwarding(session);
-		} catch (Exception e) {
-			e.printStackTrace();
+			setPortForwarding();
 		}
-	}
 
-	public static void setPortForwarding(Session session) throws JSchException {
-		int lport = Config.getIntValue(SSH_LPORT);
-		String rhost = Config.getValue(SSH_RHOST);
-		int rport = Config.getIntValue(SSH_RPORT);
+		private void setPortForwarding() throws JSchException {
+			if (rhost.isEmpty())
+				return;
 
-		if (!rhost.isEmpty()) {
-			int assinged_port = -1;
-			assinged_port = session.setPortForwardingL(lport, rhost, rport);
+			localPort = session.setPortForwardingL(localPort, rhost, rport);
+			TestLog.ConsoleLog("Port forwarding: assigned port: " + localPort + " -> " + rhost + ":" + rport);
+		}
 
-			TestLog.ConsoleLog("Port forwarding: assigned port: " + assinged_port + " -> " + rhost + ":" + rport);
+		private synchronized void disconnect() {
+			if (session == null)
+				return;
+			if (session.isConnected())
+				session.disconnect();
+			session = null;
 		}
 	}
 }
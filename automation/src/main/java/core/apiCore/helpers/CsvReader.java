@@ -100,6 +100,9 @@ public class CsvReader {
 		//print out warning for duplicated test names
 		detectDuplicateTests(testCaseList);
 		
+		// build row dependencies if rows run in parallel
+		CsvRowScheduler.schedule(testCaseList);
+		
 		List<Object> tests = new ArrayList<Object>();
 		for(Object[] object : testCaseList) {
 			tests.add(object);
@@ -534,7 +537,11 @@ public class CsvReader {
 
 	/**
 	 * gets all test cases from testcase path based on prefix
+	 * 
+	 * @deprecated api keywords are looked up through KeywordRegistry. apiMap is
+	 *             no longer used for lookup
 	 */
+	@Deprecated
 	public static void getAllTestCases(String testPath, String prefix) {
 		ArrayList<File> csvFiles = Helper.getFileListByType(testPath, prefix);
 		for (int i = 0; i < csvFiles.size(); i++) {
@@ -545,12 +552,11 @@ public class CsvReader {
 	}
 
 	/**
-	 * gets all keywords And stores them in apiMap in testObject
+	 * loads all keywords into the shared keyword registry
+	 * keywords are loaded once per suite. see KeywordRegistry
 	 */
-	public synchronized static void getAllKeywords() {
-		String testFolderPath = Config.getValue(TestDataProvider.API_KEYWORD_PATH);
-		String csvTestPath = Helper.getFullPath(testFolderPath);
-		CsvReader.getAllTestCases(csvTestPath, ".csv");
+	public static void getAllKeywords() {
+		KeywordRegistry.load();
 	}
 
 	/**
@@ -605,8 +611,7 @@ public class CsvReader {
 	 */
 	public static ArrayList<File> getCsvFileList(String csvTestPath) {
 		boolean includeSubDirectories = Config.getBooleanValue(SERVICE_CSV_INCLUDE_SUB_DIR);
-		ArrayList<File> csvFiles = Helper.getFileListByType(csvTestPath, ".csv", includeSubDirectories);
-		return csvFiles;
+		return CsvTestPlan.getCsvFileList(csvTestPath, includeSubDirectories);
 	}
 
 	/**
@@ -694,45 +699,13 @@ public class CsvReader {
 	 * @return
 	 */
 	public static List<Object[]> getCsvTestList(File file) {
-		List<Object[]> csvList = new ArrayList<Object[]>();
-
-		try {
-			
-		    CSVReader reader = readCsvFile(file);
-		    
-			// read header separately
-			String[] header = reader.readNext();
-			ArrayList<String> headerList = new ArrayList<String>();
-			
-			int runFlag = getColumnIndexByName("RunFlag", header);
-			int testCaseIDIndex = getColumnIndexByName("TestCaseID", header);
-			int testCaseSuiteIndex =  getColumnIndexByName("TestSuite", header);
-			String testCaseSuite = StringUtils.EMPTY;
-
-			// only add tests that have runFlag set to Y And testCaseID are set
-			String[] line;
-			while ((line = reader.readNext()) != null) {
-				// limit array to size of values. eg. 15 column values
-				String[] newline = Arrays.copyOfRange(line, 0, SERVICE_CSV_VISIBLE_COLUMN_COUNT);
-				if (newline[runFlag].equals("Y") && !newline[testCaseIDIndex].isEmpty()) {
-					csvList.add(newline);
-					
-					// set testSuit name. need to set only 1 time
-					if(testCaseSuite.isEmpty()) {
-						testCaseSuite = newline[testCaseSuiteIndex];
-						headerList = new ArrayList<String>(Arrays.asList(header));
-						headerList.add(testCaseSuite);
-					}
-				}
-			}
-			// store header column names, using test suite as key
-			TestObject.getGlobalTestInfo().serviceObject.withHeaderMap(testCaseSuite,headerList);
-					
-						
-			reader.close();
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		
+		// csv file is parsed once per suite. see CsvTestPlan
+		CsvTestPlan.CsvFile csvFile = CsvTestPlan.getCsvFile(file, getCsvSeparator());
+		List<Object[]> csvList = csvFile.getRows();
+		
+		// store header column names, using test suite as key
+		TestObject.getGlobalTestInfo().serviceObject.withHeaderMap(csvFile.getTestCaseSuite(), csvFile.getHeaderList());
 
 		// filter based on include test cases
 		csvList = setIncludeTestRange(file, csvList);
@@ -884,10 +857,13 @@ public class CsvReader {
 	*/
 	
 	public static CSVReader readCsvFile(File file) {
+		return readCsvFile(file, getCsvSeparator());
+	}
+	
+	public static CSVReader readCsvFile(File file, char separator) {
 		CSVReader reader = null;
 		try {
 			// read csv file
-			char separator = getCsvSeparator();				
 			FileInputStream fis = new FileInputStream(file.getPath());
 	        InputStreamReader isr = new InputStreamReader(fis, 
 	                StandardCharsets.UTF_8);
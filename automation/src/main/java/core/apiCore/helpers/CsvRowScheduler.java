@@ -0,0 +1,436 @@
+package core.apiCore.helpers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.aventstack.extentreports.ExtentTest;
+
+import core.apiCore.ServiceManager;
+import core.apiCore.driver.ApiTestDriver;
+import core.helpers.Helper;
+import core.support.configReader.Config;
+import core.support.configReader.ConfigScope;
+import core.support.objects.KeyValue;
+import core.support.objects.ServiceObject;
+import core.support.objects.TestObject;
+import core.support.runner.TestExecutors;
+import core.uiCore.driverProperties.globalProperties.CrossPlatformProperties;
+import core.uiCore.drivers.AbstractDriverTestNG;
+
+/**
+ * runs independent rows of a service csv file in parallel
+ *
+ * each row is a node in a dependency graph. a row waits for the rows it
+ * depends on to complete before it starts:
+ * - DEPENDS_ON_TEST option: the named test
+ * - variables: a row reading <@var> waits for the last earlier row writing <$var>.
+ *   a row writing <$var> waits for earlier rows reading or writing var
+ * - test steps: steps are merged into one row And run in order on one thread
+ * - rows with EXTERNAL, AUTHENTICATION or TestPrepare interface update the
+ *   shared config And run alone: after all earlier rows, before all later rows
+ * - the last row depends on all rows, so after csv file runs once all tests are complete
+ *
+ * rows run on the data provider thread pool, at most count rows per csv file.
+ * a row fails if the rows it depends on do not complete within the timeout.
+ * before csv file runs once per parent object
+ *
+ * each row has its own config scope, a child of the parent object config, so
+ * options stay in the row. output parameters And option variables (<$var>) are
+ * set in the parent config as well. rows with EXTERNAL, AUTHENTICATION or
+ * TestPrepare interface share the parent config, as with sequential runs.
+ * options of rows with their own scope are evaluated after the scope is set,
+ * after before csv file runs. other rows evaluate options before it, as with
+ * sequential runs
+ *
+ * if global.parallel.virtualThreads.isEnabled is set, the row body runs on a
+ * virtual thread, see runRow. the data provider thread waits for it. thread
+ * local test state is copied to the virtual thread. per thread interface state
+ * (json documents, rabbitMq channels, xml parsers, template buffers) is cleared
+ * at row end. TestDataProvider.log is not set by the framework, so it is not
+ * copied
+ *
+ * config:
+ * service.csv.row.parallel.isEnabled: run independent rows in parallel. default: false
+ * service.csv.row.parallel.count: rows running in parallel per csv file. default: global.parallel_test_count
+ * service.csv.row.parallel.timeoutSeconds: max wait for rows a row depends on. default: 600
+ */
+public class CsvRowScheduler {
+
+	public static final String SERVICE_CSV_ROW_PARALLEL_ENABLED = "service.csv.row.parallel.isEnabled";
+	public static final String SERVICE_CSV_ROW_PARALLEL_COUNT = "service.csv.row.parallel.count";
+	public static final String SERVICE_CSV_ROW_PARALLEL_TIMEOUT_SECONDS = "service.csv.row.parallel.timeoutSeconds";
+
+	private static final int DEFAULT_TIMEOUT_SECONDS = 600;
+
+	private static final Pattern VARIABLE_WRITE = Pattern.compile("<\\$(.+?)>");
+	private static final Pattern VARIABLE_READ = Pattern.compile("<@(.+?)>");
+
+	// interfaces that update shared config outside of <$var> output params
+	private static final Set<String> BARRIER_INTERFACES = new LinkedHashSet<String>(
+			Arrays.asList(ServiceManager.EXTERNAL_INTERFACE, ServiceManager.AUTHENTICATION,
+					ServiceManager.TEST_PREPARE_INTERFACE));
+
+	// key: csv row passed by the data provider
+	private static final Map<Object[], RowNode> scheduledRows = Collections
+			.synchronizedMap(new WeakHashMap<Object[], RowNode>());
+
+	public static boolean isEnabled() {
+		return Config.getBooleanValue(SERVICE_CSV_ROW_PARALLEL_ENABLED);
+	}
+
+	/**
+	 * number of rows of a csv file running in parallel
+	 *
+	 * @return
+	 */
+	public static int getThreadCount() {
+		int threadCount = Config.getIntValue(SERVICE_CSV_ROW_PARALLEL_COUNT);
+		if (threadCount <= 0)
+			threadCount = CrossPlatformProperties.getParallelTests();
+		return Math.max(threadCount, 1);
+	}
+
+	/**
+	 * max wait for rows a row depends on
+	 *
+	 * @return
+	 */
+	public static int getTimeoutSeconds() {
+		int timeout = Config.getIntValue(SERVICE_CSV_ROW_PARALLEL_TIMEOUT_SECONDS);
+		return timeout <= 0 ? DEFAULT_TIMEOUT_SECONDS : timeout;
+	}
+
+	/**
+	 * builds dependency graph for the rows of a csv file. rows are in run order
+	 *
+	 * @param testCaseList rows returned by the data provider
+	 */
+	public static void schedule(List<Object[]> testCaseList) {
+		if (!isEnabled())
+			return;
+
+		Map<String, RowNode> testNodes = new HashMap<String, RowNode>(); // key: test name
+		Map<String, RowNode> lastWriters = new HashMap<String, RowNode>(); // key: variable
+		Map<String, List<RowNode>> readers = new HashMap<String, List<RowNode>>(); // readers since last write
+		List<RowNode> sinceBarrier = new ArrayList<RowNode>();
+		RowNode barrier = null;
+
+		// rows of the csv file running at a time
+		Semaphore permits = new Semaphore(getThreadCount(), true);
+
+		for (int i = 0; i < testCaseList.size(); i++) {
+			Object[] row = testCaseList.get(i);
+			ServiceObject serviceObject = CsvReader.mapToServiceObject(row);
+			List<ServiceObject> steps = getSteps(serviceObject);
+
+			Set<String> writes = new LinkedHashSet<String>();
+			Set<String> reads = new LinkedHashSet<String>();
+			boolean isBarrier = false;
+			for (ServiceObject step : steps) {
+				String text = getRowText(step);
+				writes.addAll(getVariables(VARIABLE_WRITE, text));
+				reads.addAll(getVariables(VARIABLE_READ, text));
+				isBarrier |= BARRIER_INTERFACES.contains(step.getInterfaceType());
+			}
+			RowNode node = new RowNode(serviceObject.getTestCaseID(), isBarrier, permits);
+
+			if (barrier != null)
+				node.dependencies.add(barrier);
+			if (isBarrier || i == testCaseList.size() - 1)
+				node.dependencies.addAll(sinceBarrier);
+
+			for (String testname : getDependsOnTests(steps)) {
+				if (testNodes.containsKey(testname))
+					node.dependencies.add(testNodes.get(testname));
+			}
+			for (String variable : reads) {
+				if (lastWriters.containsKey(variable))
+					node.dependencies.add(lastWriters.get(variable));
+			}
+			for (String variable : writes) {
+				if (lastWriters.containsKey(variable))
+					node.dependencies.add(lastWriters.get(variable));
+				if (readers.containsKey(variable))
+					node.dependencies.addAll(readers.get(variable));
+			}
+			node.dependencies.remove(node);
+
+			for (String variable : reads) {
+				if (!readers.containsKey(variable))
+					readers.put(variable, new ArrayList<RowNode>());
+				readers.get(variable).add(node);
+			}
+			for (String variable : writes) {
+				lastWriters.put(variable, node);
+				readers.remove(variable);
+			}
+			testNodes.put(serviceObject.getTestCaseID(), node);
+
+			if (isBarrier) {
+				barrier = node;
+				sinceBarrier.clear();
+			} else
+				sinceBarrier.add(node);
+
+			scheduledRows.put(row, node);
+		}
+	}
+
+	/**
+	 * waits for the rows the current row depends on to complete, Then for a free
+	 * slot of the csv file. fails the row if not complete within the timeout
+	 *
+	 * @param row csv row passed by the data provider
+	 */
+	public static void awaitDependencies(Object row) {
+		RowNode node = getNode(row);
+		if (node == null)
+			return;
+
+		int timeoutSeconds = getTimeoutSeconds();
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutSeconds);
+		try {
+			for (RowNode dependency : node.dependencies) {
+				long remainingMillis = Math.max(deadline - System.currentTimeMillis(), 0);
+				if (!dependency.complete.await(remainingMillis, TimeUnit.MILLISECONDS))
+					Helper.assertFalse("test: " + dependency.testname + " did not complete within " + timeoutSeconds
+							+ " seconds. required by test: " + node.testname);
+			}
+
+			// retried rows keep their slot
+			if (node.hasPermit.get())
+				return;
+			long remainingMillis = Math.max(deadline - System.currentTimeMillis(), 0);
+			if (!node.permits.tryAcquire(remainingMillis, TimeUnit.MILLISECONDS))
+				Helper.assertFalse("no free slot for test: " + node.testname + " within " + timeoutSeconds
+						+ " seconds. see " + SERVICE_CSV_ROW_PARALLEL_COUNT);
+			node.hasPermit.set(true);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			Helper.assertFalse("interrupted while waiting for dependencies of test: " + node.testname);
+		}
+	}
+
+	/**
+	 * sets config scope of the current row, after the api driver is set up. rows
+	 * running in parallel get a child scope of the parent config. rows updating
+	 * shared config keep the parent config
+	 *
+	 * @param row csv row passed by the data provider
+	 */
+	public static void setRowConfig(Object row) {
+		RowNode node = getNode(row);
+		if (!hasRowConfig(row))
+			return;
+		TestObject.getTestInfo().config = ConfigScope.createChild(ApiTestDriver.getParentTestObject().config);
+	}
+
+	/**
+	 * returns true if the row runs in its own config scope, see setRowConfig.
+	 * false for sequential runs
+	 *
+	 * @param row csv row passed by the data provider
+	 * @return
+	 */
+	public static boolean hasRowConfig(Object row) {
+		RowNode node = getNode(row);
+		return node != null && !node.isBarrier;
+	}
+
+	/**
+	 * runs the row body on a virtual thread, if enabled, else on the current
+	 * thread. the current thread waits for the row. exceptions of the row are
+	 * rethrown, so testng reports And retries the row as usual
+	 *
+	 * @param task row body
+	 * @throws Exception
+	 */
+	public static void runRow(RowTask task) throws Exception {
+		ExecutorService executor = TestExecutors.getVirtualThreadExecutor();
+		if (executor == null) {
+			task.run();
+			return;
+		}
+
+		// thread local test state of the data provider thread
+		String testId = TestObject.currentTestId.get();
+		String testName = TestObject.currentTestName.get();
+		ExtentTest step = AbstractDriverTestNG.step.get();
+		String driverClassname = AbstractDriverTestNG.testClassname.get();
+		String driverTestName = AbstractDriverTestNG.testName.get();
+
+		Future<?> future = executor.submit(() -> {
+			TestObject.currentTestId.set(testId);
+			TestObject.currentTestName.set(testName);
+			AbstractDriverTestNG.step.set(step);
+			AbstractDriverTestNG.testClassname.set(driverClassname);
+			AbstractDriverTestNG.testName.set(driverTestName);
+			try {
+				task.run();
+			} finally {
+				ServiceManager.clearThreadState();
+				ServiceManager.clearThreadCaches();
+				TestObject.currentTestId.remove();
+				TestObject.currentTestName.remove();
+				AbstractDriverTestNG.step.remove();
+				AbstractDriverTestNG.testClassname.remove();
+				AbstractDriverTestNG.testName.remove();
+			}
+			return null;
+		});
+
+		try {
+			future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception)
+				throw (Exception) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw e;
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw e;
+		}
+	}
+
+	/**
+	 * marks row as complete. rows depending on it will start
+	 *
+	 * @param parameters test method parameters
+	 */
+	public static void complete(Object[] parameters) {
+		if (parameters == null || parameters.length == 0)
+			return;
+		Object[] row = ApiTestDriver.getTestData(parameters);
+		RowNode node = scheduledRows.get(row);
+		if (node == null)
+			return;
+		if (node.hasPermit.compareAndSet(true, false))
+			node.permits.release();
+		node.complete.countDown();
+	}
+
+	private static RowNode getNode(Object row) {
+		if (!(row instanceof Object[]))
+			return null;
+		return scheduledRows.get(row);
+	}
+
+	/**
+	 * row And its test steps. steps are merged into the row by the csv reader
+	 *
+	 * @param serviceObject
+	 * @return
+	 */
+	private static List<ServiceObject> getSteps(ServiceObject serviceObject) {
+		List<ServiceObject> steps = new ArrayList<ServiceObject>();
+		steps.add(serviceObject);
+
+		Map<String, List<Object>> testStepMap = serviceObject.getServiceSteps();
+		if (testStepMap == null)
+			return steps;
+		List<Object> testSteps = testStepMap.get(CsvReader.getTestname(serviceObject.getTestCaseID()));
+		if (testSteps == null)
+			return steps;
+		for (Object step : testSteps)
+			steps.add(CsvReader.mapToServiceObject((Object[]) step));
+		return steps;
+	}
+
+	/**
+	 * csv columns of the row, And the template file content
+	 *
+	 * @param serviceObject
+	 * @return
+	 */
+	private static String getRowText(ServiceObject serviceObject) {
+		StringBuilder text = new StringBuilder();
+		text.append(serviceObject.getUriPath()).append('\n').append(serviceObject.getMethod()).append('\n')
+				.append(serviceObject.getOption()).append('\n').append(serviceObject.getRequestHeaders()).append('\n')
+				.append(serviceObject.getRequestBody()).append('\n').append(serviceObject.getOutputParams())
+				.append('\n').append(serviceObject.getRespCodeExp()).append('\n')
+				.append(serviceObject.getExpectedResponse());
+
+		if (!StringUtils.isBlank(serviceObject.getTemplateFile())) {
+			File templateFile = DataHelper.getFile(serviceObject.getTemplateFile());
+			if (templateFile.isFile())
+				text.append('\n').append(Helper.readFileContent(templateFile.getAbsolutePath()));
+		}
+		return text.toString();
+	}
+
+	/**
+	 * variable names in text. parameters starting with "_" are generated values.
+	 * eg. <@_TIME_17>
+	 *
+	 * @param pattern
+	 * @param text
+	 * @return
+	 */
+	private static Set<String> getVariables(Pattern pattern, String text) {
+		Set<String> variables = new LinkedHashSet<String>();
+		Matcher matcher = pattern.matcher(text);
+		while (matcher.find()) {
+			String variable = matcher.group(1).replace("@", "").trim();
+			if (!variable.isEmpty() && !variable.startsWith("_"))
+				variables.add(variable);
+		}
+		return variables;
+	}
+
+	private static Set<String> getDependsOnTests(List<ServiceObject> steps) {
+		Set<String> tests = new LinkedHashSet<String>();
+		for (ServiceObject step : steps) {
+			if (!step.getOption().contains(ServiceManager.DEPENDS_ON_TEST))
+				continue;
+			for (KeyValue keyword : DataHelper.getValidationMap(step.getOption())) {
+				if (keyword.key.equals(ServiceManager.DEPENDS_ON_TEST))
+					tests.add(keyword.value.toString().trim());
+			}
+		}
+		return tests;
+	}
+
+	/**
+	 * row body, see runRow
+	 */
+	public interface RowTask {
+		void run() throws Exception;
+	}
+
+	private static class RowNode {
+		private final String testname;
+		private final boolean isBarrier;
+		private final Semaphore permits; // shared by rows of the csv file
+		private final AtomicBoolean hasPermit = new AtomicBoolean(false);
+		private final Set<RowNode> dependencies = new LinkedHashSet<RowNode>();
+		private final CountDownLatch complete = new CountDownLatch(1);
+
+		RowNode(String testname, boolean isBarrier, Semaphore permits) {
+			this.testname = testname;
+			this.isBarrier = isBarrier;
+			this.permits = permits;
+		}
+	}
+}
@@ -0,0 +1,295 @@
+package core.apiCore.helpers;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.opencsv.CSVReader;
+
+import core.helpers.Helper;
+import core.support.configReader.Config;
+import core.support.logger.TestLog;
+
+/**
+ * suite level index of service csv files
+ *
+ * directory listings are resolved once per suite. each csv file is parsed once
+ * into an immutable row model, keyed by file path, size And last modified time.
+ * if enabled, parsed files are persisted to disk And reused by later runs. only
+ * completely parsed files are kept. the index is cleared when the suite finishes
+ *
+ * config:
+ * service.csv.cache.isEnabled: persist parsed csv files to disk
+ * service.csv.cache.path: location of persisted csv files. default: target/csvCache
+ */
+public class CsvTestPlan {
+
+	public static final String SERVICE_CSV_CACHE_ENABLED = "service.csv.cache.isEnabled";
+	public static final String SERVICE_CSV_CACHE_PATH = "service.csv.cache.path";
+	private static final String DEFAULT_CACHE_PATH = "target" + File.separator + "csvCache";
+	private static final String CACHE_FILE_TYPE = ".ser";
+
+	// key: csv directory path + include sub directory flag
+	private static Map<String, List<File>> csvFileLists = new ConcurrentHashMap<String, List<File>>();
+
+	// key: csv file absolute path
+	private static Map<String, CsvFile> csvFiles = new ConcurrentHashMap<String, CsvFile>();
+
+	/**
+	 * returns a list of all csv files in directory. directory is listed once per
+	 * suite
+	 *
+	 * @param csvTestPath full path to csv directory
+	 * @param includeSubDirectories
+	 * @return copy of the csv file list
+	 */
+	public static ArrayList<File> getCsvFileList(String csvTestPath, boolean includeSubDirectories) {
+		String key = csvTestPath + ":" + includeSubDirectories;
+		List<File> csvFileList = csvFileLists.get(key);
+		if (csvFileList == null) {
+			csvFileList = Collections
+					.unmodifiableList(Helper.getFileListByType(csvTestPath, ".csv", includeSubDirectories));
+			csvFileLists.put(key, csvFileList);
+		}
+		return new ArrayList<File>(csvFileList);
+	}
+
+	/**
+	 * returns the parsed csv file. parses the file if not in memory or disk cache,
+	 * or if the file has changed
+	 *
+	 * @param file
+	 * @param separator
+	 * @return
+	 */
+	public static CsvFile getCsvFile(File file, char separator) {
+		String path = file.getAbsolutePath();
+
+		CsvFile csvFile = csvFiles.get(path);
+		if (csvFile != null && csvFile.isCurrent(file, separator))
+			return csvFile;
+
+		csvFile = readCachedCsvFile(file, separator);
+		if (csvFile != null) {
+			csvFiles.put(path, csvFile);
+			return csvFile;
+		}
+
+		// partially parsed files are used for this run only, And parsed again next time
+		csvFile = parseCsvFile(file, separator);
+		if (csvFile.isComplete) {
+			writeCachedCsvFile(csvFile);
+			csvFiles.put(path, csvFile);
+		} else
+			csvFiles.remove(path);
+		return csvFile;
+	}
+
+	/**
+	 * clears the in memory index. called when the suite finishes. disk cache is
+	 * validated by size And last modified time
+	 */
+	public static void reset() {
+		csvFileLists.clear();
+		csvFiles.clear();
+	}
+
+	/**
+	 * parses csv file. only rows with RunFlag set to Y And TestCaseID set are
+	 * kept
+	 *
+	 * @param file
+	 * @param separator
+	 * @return
+	 */
+	private static CsvFile parseCsvFile(File file, char separator) {
+		List<String[]> rows = new ArrayList<String[]>();
+		String[] header = new String[0];
+		String testCaseSuite = StringUtils.EMPTY;
+		boolean isComplete = false;
+
+		try {
+			CSVReader reader = CsvReader.readCsvFile(file, separator);
+
+			// read header separately
+			header = reader.readNext();
+
+			int runFlag = CsvReader.getColumnIndexByName("RunFlag", header);
+			int testCaseIDIndex = CsvReader.getColumnIndexByName("TestCaseID", header);
+			int testCaseSuiteIndex = CsvReader.getColumnIndexByName("TestSuite", header);
+
+			// only add tests that have runFlag set to Y And testCaseID are set
+			String[] line;
+			while ((line = reader.readNext()) != null) {
+				// limit array to size of values. eg. 15 column values
+				String[] newline = Arrays.copyOfRange(line, 0, CsvReader.SERVICE_CSV_VISIBLE_COLUMN_COUNT);
+				if (newline[runFlag].equals("Y") && !newline[testCaseIDIndex].isEmpty()) {
+					rows.add(newline);
+
+					// set testSuit name. need to set only 1 time
+					if (testCaseSuite.isEmpty())
+						testCaseSuite = newline[testCaseSuiteIndex];
+				}
+			}
+			reader.close();
+			isComplete = true;
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+		return new CsvFile(file, separator, header, testCaseSuite, rows, isComplete);
+	}
+
+	/**
+	 * reads persisted csv file from disk cache. returns null if not enabled, not
+	 * found, or csv file has changed
+	 *
+	 * @param file
+	 * @param separator
+	 * @return
+	 */
+	private static CsvFile readCachedCsvFile(File file, char separator) {
+		File cacheFile = getCacheFile(file);
+		if (cacheFile == null || !cacheFile.exists())
+			return null;
+
+		try (ObjectInputStream input = new ObjectInputStream(new FileInputStream(cacheFile))) {
+			CsvFile csvFile = (CsvFile) input.readObject();
+			if (csvFile.path.equals(file.getAbsolutePath()) && csvFile.isCurrent(file, separator))
+				return csvFile;
+		} catch (Exception e) {
+			TestLog.ConsoleLog("csv cache file could not be read: " + cacheFile.getPath() + " " + e.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * persists parsed csv file to disk cache if enabled
+	 *
+	 * @param csvFile
+	 */
+	private static void writeCachedCsvFile(CsvFile csvFile) {
+		File cacheFile = getCacheFile(new File(csvFile.path));
+		if (cacheFile == null)
+			return;
+
+		// write to temp file first, so that partially written files are not read
+		File tempFile = new File(cacheFile.getPath() + "." + Thread.currentThread().getId());
+		try {
+			cacheFile.getParentFile().mkdirs();
+			try (ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(tempFile))) {
+				output.writeObject(csvFile);
+			}
+			if (!tempFile.renameTo(cacheFile)) {
+				cacheFile.delete();
+				tempFile.renameTo(cacheFile);
+			}
+		} catch (Exception e) {
+			tempFile.delete();
+			TestLog.ConsoleLog("csv cache file could not be written: " + cacheFile.getPath() + " " + e.getMessage());
+		}
+	}
+
+	/**
+	 * cache file for csv file. returns null if disk cache is not enabled
+	 *
+	 * @param file
+	 * @return
+	 */
+	private static File getCacheFile(File file) {
+		if (!Config.getBooleanValue(SERVICE_CSV_CACHE_ENABLED))
+			return null;
+
+		String cachePath = Config.getValue(SERVICE_CSV_CACHE_PATH);
+		if (cachePath.isEmpty())
+			cachePath = DEFAULT_CACHE_PATH;
+
+		String path = file.getAbsolutePath();
+		String cacheName = file.getName() + "_" + Integer.toHexString(path.hashCode()) + CACHE_FILE_TYPE;
+		return new File(Helper.getFullPath(cachePath), cacheName);
+	}
+
+	/**
+	 * immutable row model of a service csv file
+	 */
+	public static class CsvFile implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final String path;
+		private final long size;
+		private final long lastModified;
+		private final char separator;
+		private final String[] header;
+		private final String testCaseSuite;
+		private final List<String[]> rows;
+
+		// false if parsing failed partway. only complete files are cached
+		private final boolean isComplete;
+
+		private CsvFile(File file, char separator, String[] header, String testCaseSuite, List<String[]> rows,
+				boolean isComplete) {
+			this.path = file.getAbsolutePath();
+			this.size = file.length();
+			this.lastModified = file.lastModified();
+			this.separator = separator;
+			this.header = header;
+			this.testCaseSuite = testCaseSuite;
+			this.rows = rows;
+			this.isComplete = isComplete;
+		}
+
+		/**
+		 * returns true if csv file has not changed since it was parsed
+		 *
+		 * @param file
+		 * @param separator
+		 * @return
+		 */
+		public boolean isCurrent(File file, char separator) {
+			return this.size == file.length() && this.lastModified == file.lastModified()
+					&& this.separator == separator;
+		}
+
+		public String getTestCaseSuite() {
+			return testCaseSuite;
+		}
+
+		/**
+		 * header column names, with test suite name appended. empty if no tests in
+		 * file
+		 *
+		 * @return
+		 */
+		public ArrayList<String> getHeaderList() {
+			ArrayList<String> headerList = new ArrayList<String>();
+			if (testCaseSuite.isEmpty())
+				return headerList;
+			headerList.addAll(Arrays.asList(header));
+			headerList.add(testCaseSuite);
+			return headerList;
+		}
+
+		/**
+		 * returns a copy of the csv rows. rows are modified by the test runner
+		 *
+		 * @return
+		 */
+		public List<Object[]> getRows() {
+			List<Object[]> csvList = new ArrayList<Object[]>(rows.size());
+			for (String[] row : rows)
+				csvList.add(row.clone());
+			return csvList;
+		}
+	}
+}
@@ -79,56 +79,8 @@ public class DataHelper {
 		if (source.isEmpty())
 			return source; 
 
-		List<String> parameters = Helper.getValuesFromPattern(source,tagPattern);
-		Object value = null;
-		int length = 0;
-		String newTime = StringUtils.EMPTY;
-		for (String parameter : parameters) {
-			if (parameter.contains("_TIME_MS_")) {
-				newTime = getTime(parameter, Config.getValue(TestObject.START_TIME_STRING));
-				Instant time = Instant.parse(newTime);
-				value = getTimeSubstring(parameter, String.valueOf(time.toEpochMilli()));
-			}else if (parameter.contains("_TIME_S_")) {
-					newTime = getTime(parameter, Config.getValue(TestObject.START_TIME_STRING));
-					Instant time = Instant.parse(newTime);
-					value = getTimeSubstring(parameter, String.valueOf(time.getEpochSecond()));
-			} else if (parameter.contains("_TIME_STRING_")) {
-				newTime = getTime(parameter, Config.getValue(TestObject.START_TIME_STRING));
-				value = getTimeSubstring(parameter, Helper.date.getTime(newTime, "yyyyMMddHHmmssSSS", null));
-			} else if (parameter.contains("_TIME_ISO_")) {
-				newTime = getTime(parameter, Config.getValue(TestObject.START_TIME_STRING));
-				value = getTimeSubstring(parameter, newTime);
-			} else if (parameter.contains("_TIME")) {
-				newTime = getTime(parameter, Config.getValue(TestObject.START_TIME_STRING));
-				value = getTimeSubstring(parameter, newTime);
-			} else if (parameter.contains("_RANDUUID")) {	
-				value = Helper.generateUUID();
-			} else if (parameter.contains("_UUID_STATIC")) {	
-				value = Config.getValue(TestObject.UUID_STATIC_STRING);
-			} else if (parameter.contains("_RAND")) {
-				length = Helper.getIntFromString(parameter);
-				value = Config.getValue(TestObject.RANDOM_STRING).substring(0, length);
-			} else if (parameter.contains("_INCREMENT_FROM_")) {
-				value = getIncrementalValue(parameter);
-			} else if (parameter.contains("_XML")) {
-				// syntax:e.g. <@_XML:ID:1> will be replaced by 2
-				String[] valueArray = parameter.split(":");
-				int index = 0;
-				String tag = valueArray[1];
-				if (valueArray.length == 3) // if has index value
-					index = Integer.valueOf(parameter.split(":")[2]);
-				value = XmlHelper.getXmlTagValue(source, tag, index + 1);
-			} else {
-				value = Config.getObjectValue(parameter.replace("@", ""));
-			}
-			if (isObjectEmpty(value))
-				TestLog.logWarning("parameter value not found: " + parameter);
-			else {
-					source = source.replace(openingTag + parameter + closingTag, Matcher.quoteReplacement(value.toString()));
-			}			
-		}
-
-		return source;
+		// source is compiled once into literals and typed placeholders. see ParameterTemplate
+		return ParameterTemplate.replaceParameters(source, tagPattern, openingTag);
 	}
 	
 	public static boolean isObjectEmpty(Object value) {
@@ -1316,7 +1268,7 @@ public class DataHelper {
 			// gets json value. if list, returns string separated by comma
 			String key = keyword.key;
 
-			Config.putValue(value, key);
+			Config.putOutputValue(value, key, true);
 		}
 	}
 
@@ -1449,7 +1401,7 @@ public class DataHelper {
 	 * @param expectedResponse
 	 * @return
 	 */
-	private static String[] getCriteria(String expectedResponse) {
+	public static String[] getCriteria(String expectedResponse) {
 		
 		// separate the expected response by && or ||
 		String[] criteria =   expectedResponse.split("(?="+ VALIDATION_AND_CONDITION +")|(?="+ VALIDATION_OR_CONDITION_ECODE +")");
@@ -1494,6 +1446,18 @@ public class DataHelper {
 	 */
 	public static boolean evaluateLogic(String logicString) {
 		
+		logicString = removeAndOrIndicator(logicString);
+		return LogicHelper.evaluate(logicString);
+	}
+	
+	/**
+	 * evaluates string logic using the graal.js script engine
+	 * reference implementation for LogicHelper.evaluate. starts a new script engine per call
+	 * @param logicString
+	 * @return
+	 */
+	public static boolean evaluateLogicWithScriptEngine(String logicString) {
+		
 		logicString = removeAndOrIndicator(logicString);
 		
 		ScriptEngineManager mgr = new ScriptEngineManager();
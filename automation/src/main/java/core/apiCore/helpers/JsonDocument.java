@@ -0,0 +1,222 @@
+package core.apiCore.helpers;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.PathNotFoundException;
+
+import io.restassured.response.Response;
+
+/**
+ * parsed json string, shared by the validations of a response
+ *
+ * a json string is parsed once per thread And reused by json path validations,
+ * output parameters And logging of the same response. json paths are compiled
+ * once And cached. documents are read only. json updates, eg. request body
+ * templates, parse their own copy
+ *
+ * documents of streamed responses have the values of known json paths only.
+ * see JsonStreamValidator
+ *
+ * documents of a thread are cleared at test end, see clear
+ */
+public class JsonDocument {
+
+	private static final int MAX_DOCUMENTS_PER_THREAD = 4;
+	private static final int MAX_COMPILED_PATHS = 2048;
+
+	private static final Configuration CONFIGURATION = Configuration.defaultConfiguration();
+	private static final Configuration LIST_CONFIGURATION = Configuration.defaultConfiguration()
+			.addOptions(Option.ALWAYS_RETURN_LIST);
+
+	// key: json path
+	private static final Cache<String, JsonPath> compiledPaths = CacheBuilder.newBuilder()
+			.maximumSize(MAX_COMPILED_PATHS).build();
+
+	// recently used documents per thread. key: json string
+	private static final ThreadLocal<Map<String, JsonDocument>> documents = ThreadLocal
+			.withInitial(() -> new LinkedHashMap<String, JsonDocument>(8, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, JsonDocument> eldest) {
+					return size() > MAX_DOCUMENTS_PER_THREAD;
+				}
+			});
+
+	// last response body per thread. response body is converted to string once
+	private static final ThreadLocal<ResponseBody> lastResponse = new ThreadLocal<ResponseBody>();
+
+	private final String json;
+	private Object document;
+	private boolean isValidated = false;
+	private Boolean hasEscapeChar;
+
+	// streamed response values. key: json path
+	private Map<String, Object> streamedValues;
+
+	private JsonDocument(String json) {
+		this.json = json;
+	}
+
+	/**
+	 * gets document for json string. json is parsed on first read
+	 *
+	 * @param json
+	 * @return
+	 */
+	public static JsonDocument get(String json) {
+		// streamed response preview. values are found by preview instance, not content
+		ResponseBody body = lastResponse.get();
+		if (body != null && body.streamedDocument != null && body.value == json)
+			return body.streamedDocument;
+
+		Map<String, JsonDocument> threadDocuments = documents.get();
+		JsonDocument document = threadDocuments.get(json);
+		if (document == null) {
+			document = new JsonDocument(json);
+			threadDocuments.put(json, document);
+		}
+		return document;
+	}
+
+	/**
+	 * response body as string. the same string is returned for the same response,
+	 * so the document of the response is found without comparing content
+	 *
+	 * @param response
+	 * @return
+	 */
+	public static String getResponseBody(Response response) {
+		ResponseBody body = lastResponse.get();
+		if (body != null && body.response.get() == response)
+			return body.value;
+
+		String value = response.getBody().asString();
+		lastResponse.set(new ResponseBody(response, value, null));
+		return value;
+	}
+
+	/**
+	 * returns true if response body was read as string or stream
+	 *
+	 * @param response
+	 * @return
+	 */
+	public static boolean isResponseBodyRead(Response response) {
+		ResponseBody body = lastResponse.get();
+		return body != null && body.response.get() == response;
+	}
+
+	/**
+	 * sets values of streamed response. preview is returned as response body, json
+	 * paths of the response are read from values
+	 *
+	 * @param response
+	 * @param preview  start of response body, for logs
+	 * @param values   key: json path. eg. $.data.user.id. value: json path result
+	 *                 as list, null if not found
+	 */
+	public static void putStreamedResponse(Response response, String preview, Map<String, Object> values) {
+		JsonDocument document = new JsonDocument(preview);
+		document.streamedValues = values;
+		document.isValidated = true;
+		document.hasEscapeChar = false;
+		lastResponse.set(new ResponseBody(response, preview, document));
+	}
+
+	/**
+	 * clears documents And last response body of the current thread
+	 */
+	public static void clear() {
+		documents.remove();
+		lastResponse.remove();
+	}
+
+	/**
+	 * compiled json path. paths are compiled once
+	 *
+	 * @param path full json path. eg. $.data.user.id
+	 * @return
+	 */
+	public static JsonPath compile(String path) {
+		JsonPath jsonPath = compiledPaths.getIfPresent(path);
+		if (jsonPath == null) {
+			jsonPath = JsonPath.compile(path);
+			compiledPaths.put(path, jsonPath);
+		}
+		return jsonPath;
+	}
+
+	/**
+	 * validates json once. fails test if json is invalid. see
+	 * JsonHelper.isJSONValid
+	 */
+	public void validate() {
+		if (isValidated)
+			return;
+		JsonHelper.isJSONValid(json, true);
+		isValidated = true;
+	}
+
+	public boolean containsEscapeChar() {
+		if (hasEscapeChar == null)
+			hasEscapeChar = JsonHelper.containsEscapeChar(json);
+		return hasEscapeChar;
+	}
+
+	/**
+	 * reads json path value from parsed document
+	 *
+	 * @param path               full json path. eg. $.data.user.id
+	 * @param isAlwaysReturnList
+	 * @return
+	 */
+	public Object read(String path, boolean isAlwaysReturnList) {
+		if (streamedValues != null)
+			return readStreamedValue(path, isAlwaysReturnList);
+
+		Configuration config = isAlwaysReturnList ? LIST_CONFIGURATION : CONFIGURATION;
+		return compile(path).read(getDocument(), config);
+	}
+
+	public String getJson() {
+		return json;
+	}
+
+	private Object readStreamedValue(String path, boolean isAlwaysReturnList) {
+		Object value = streamedValues.get(path);
+		if (value == null)
+			throw new PathNotFoundException("No results for path: " + path);
+
+		// definite path returns single value if list is not requested
+		if (!isAlwaysReturnList && compile(path).isDefinite())
+			return ((List<?>) value).get(0);
+		return value;
+	}
+
+	private Object getDocument() {
+		if (document == null)
+			document = CONFIGURATION.jsonProvider().parse(json);
+		return document;
+	}
+
+	private static class ResponseBody {
+		private final WeakReference<Response> response;
+		private final String value;
+		private final JsonDocument streamedDocument;
+
+		ResponseBody(Response response, String value, JsonDocument streamedDocument) {
+			this.response = new WeakReference<Response>(response);
+			this.value = value;
+			this.streamedDocument = streamedDocument;
+		}
+	}
+}
@@ -23,7 +23,6 @@ import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
-import com.jayway.jsonpath.ReadContext;
 
 import core.helpers.Helper;
 import core.support.configReader.Config;
@@ -36,6 +35,9 @@ public class JsonHelper {
 
 	public static String failOnEscapeChars = "service.validation.fail.on.escapechars";
 
+	private static final Configuration LIST_CONFIGURATION = Configuration.defaultConfiguration()
+			.addOptions(Option.ALWAYS_RETURN_LIST);
+
 	/**
 	 * replaces output parameter with response values eg. $token with id form values
 	 * are in form of list separated by ";"
@@ -98,7 +100,7 @@ public class JsonHelper {
 		if (!keyword.position.isEmpty()) {
 			value = value.split(",")[Integer.valueOf(keyword.position) - 1];
 		}
-		Config.putValue(key, value, false);
+		Config.putOutputValue(key, value, false);
 		TestLog.logPass("output parameter: " + key + " value: " + value);
 		
 	}
@@ -112,7 +114,7 @@ public class JsonHelper {
 	 * @return
 	 */
 	public static String getJsonValue(Response response, String path) {
-		String jsonResponse = response.getBody().asString();
+		String jsonResponse = getResponseValue(response);
 		String value = getJsonValue(jsonResponse, path);
 		return value;
 	}
@@ -166,9 +168,12 @@ public class JsonHelper {
 		String prefix = "$.";
 		Object values = null;
 
+		// json is parsed And validated once, And reused by validations of the same response
+		JsonDocument document = JsonDocument.get(json);
+
 		// validate escape characters in json
-		isJSONValid(json, true);
-		if (Config.getBooleanValue(failOnEscapeChars) && containsEscapeChar(json))
+		document.validate();
+		if (Config.getBooleanValue(failOnEscapeChars) && document.containsEscapeChar())
 			Helper.assertFalse("invalid escape character in json. invalid chars are: \\\", \\b, "
 					+ "\\n, \\r, \\f, \\', \\\\: " + json);
 
@@ -176,21 +181,13 @@ public class JsonHelper {
 		if (path.startsWith(prefix))
 			path = path.replace(prefix, "");
 
-		// set always return list. on json path method errors, need to be turned off.
-		// eg. length()
-		Configuration config = null;
-		if (isAlwaysReturnList)
-			config = Configuration.defaultConfiguration().addOptions(Option.ALWAYS_RETURN_LIST);
-		else
-			config = Configuration.defaultConfiguration();
-
-		ReadContext ctx = JsonPath.using(config).parse(json);
-		
 		if(path.equals("."))
 			return json;
 
+		// set always return list. on json path method errors, need to be turned off.
+		// eg. length()
 		try {
-			values = ctx.read(prefix + path);
+			values = document.read(prefix + path, isAlwaysReturnList);
 		} catch (Exception e) {
 			// in case always return list is not applicable to json and we need to turn it
 			// off and rerun
@@ -212,20 +209,38 @@ public class JsonHelper {
 	public static boolean isJsonPathValueString(String json, String path) {
 		String prefix = "$.";
 		Object jsonResponse = null;
-		Object value = "";
 		// in case user forgets to remove prefix
 		if (path.startsWith(prefix))
 			path = path.replace(prefix, "");
 
-		Configuration config = Configuration.defaultConfiguration().addOptions(Option.ALWAYS_RETURN_LIST);
-		ReadContext ctx = JsonPath.using(config).parse(json);
+		try {
+			jsonResponse = JsonDocument.get(json).read(prefix + path, true);
+		} catch (Exception e) {
+			e.getCause();
+		}
+		return isValueString(jsonResponse);
+	}
 
+	/**
+	 * is json path value in parsed document a string
+	 * 
+	 * @param doc
+	 * @param path full json path. eg. $.data.user.id
+	 * @return
+	 */
+	private static boolean isJsonPathValueString(DocumentContext doc, String path) {
+		Object jsonResponse = null;
+		Object json = doc.json();
 		try {
-			jsonResponse = ctx.read(prefix + path);
+			jsonResponse = JsonPath.using(LIST_CONFIGURATION).parse(json).read(path);
 		} catch (Exception e) {
 			e.getCause();
 		}
+		return isValueString(jsonResponse);
+	}
 
+	private static boolean isValueString(Object jsonResponse) {
+		Object value = "";
 		if (jsonResponse instanceof List) {
 			net.minidev.json.JSONArray array = (net.minidev.json.JSONArray) jsonResponse;
 			if (!array.isEmpty())
@@ -292,7 +307,7 @@ public class JsonHelper {
 	}
 
 	public static String getResponseValue(Response response) {
-		return response.getBody().asString();
+		return JsonDocument.getResponseBody(response);
 	}
 
 	/**
@@ -595,13 +610,17 @@ public class JsonHelper {
 			return requestbody;
 
 		// get key value mapping of header parameters
+		// json is parsed once And updated for all keywords
+		DocumentContext doc = null;
 		List<KeyValue> keywords = DataHelper.getValidationMap(requestbody);
 		for (KeyValue keyword : keywords) {
 			if(keyword.value.toString().isEmpty()) continue;
 			
-			jsonString = replaceJsonPathValue(jsonString, keyword.key, keyword.value.toString());
+			if (doc == null)
+				doc = JsonPath.parse(jsonString);
+			replaceJsonPathValue(doc, keyword.key, keyword.value.toString());
 		}
-		return jsonString;
+		return doc == null ? jsonString : doc.jsonString();
 	}
 
 	/**
@@ -616,22 +635,34 @@ public class JsonHelper {
 	public static String replaceJsonPathValue(String jsonString, String path, String value) {
 
 		DocumentContext doc = JsonPath.parse(jsonString);
-		String prefix = "$.";
-		boolean isJsonPathValueString = JsonHelper.isJsonPathValueString(jsonString, path);
+		replaceJsonPathValue(doc, path, value);
+		return doc.jsonString();
+	}
 
-		// if json path data type is other than string, remove quotes
-		Object replacementValue = convertToObject(value, isJsonPathValueString);
+	/**
+	 * replace value in parsed json document based on json path
+	 * 
+	 * @param doc
+	 * @param path
+	 * @param value
+	 */
+	private static void replaceJsonPathValue(DocumentContext doc, String path, String value) {
+		String prefix = "$.";
 
 		// in case user forgets to remove prefix
 		if (path.startsWith(prefix))
 			path = path.replace(prefix, "");
+
+		boolean isJsonPathValueString = isJsonPathValueString(doc, prefix + path);
+
+		// if json path data type is other than string, remove quotes
+		Object replacementValue = convertToObject(value, isJsonPathValueString);
 		
 		try {
-			doc.set("$." + path, replacementValue);
+			doc.set(prefix + path, replacementValue);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
-		return doc.jsonString();
 	}
 
 	/**
@@ -0,0 +1,470 @@
+package core.apiCore.helpers;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+
+import core.helpers.Helper;
+import core.support.configReader.Config;
+import core.support.logger.TestLog;
+import core.support.objects.KeyValue;
+import core.support.objects.ServiceObject;
+import io.restassured.response.Response;
+
+/**
+ * streaming validation for large json responses
+ *
+ * the response body is read once with a token parser. values at the json paths
+ * of expected response And output parameters are kept, the rest of the body is
+ * skipped. a bounded preview of the body is kept for logs. validation And
+ * output parameters read the kept values. see JsonDocument
+ *
+ * responses are streamed if:
+ * - content type is json And content length is unknown or at least api.response.streaming.minSize
+ * - expected response has json path criteria (_VERIFY_JSON_PART_) or _NOT_EMPTY_ only
+ * - output parameters are json paths
+ * - json paths have property names, array indexes And wildcards. eg. results[*].id, data.items[0].name
+ * other responses are validated on the full body. the body of a streamed
+ * response is not available after validation. escape characters are not checked
+ *
+ * config:
+ * api.response.streaming.isEnabled: validate large json responses as a stream. default: false
+ * api.response.streaming.minSize: min content length in bytes. default: 10000000
+ * api.response.streaming.previewSize: bytes of response body kept for logs. default: 2000
+ */
+public class JsonStreamValidator {
+
+	public static final String API_RESPONSE_STREAMING_ENABLED = "api.response.streaming.isEnabled";
+	public static final String API_RESPONSE_STREAMING_MIN_SIZE = "api.response.streaming.minSize";
+	public static final String API_RESPONSE_STREAMING_PREVIEW_SIZE = "api.response.streaming.previewSize";
+
+	private static final long DEFAULT_MIN_SIZE = 10000000;
+	private static final int DEFAULT_PREVIEW_SIZE = 2000;
+
+	private static final String PREFIX = "$.";
+
+	// path segment: name, * or empty for root array, followed by [index] or [*]
+	private static final Pattern PATH_SEGMENT = Pattern.compile("^([^.\\[\\]()@?'\"\\s]*)((\\[(\\d+|\\*)\\])*)$");
+	private static final Pattern PATH_INDEX = Pattern.compile("\\[(\\d+|\\*)\\]");
+
+	/**
+	 * returns true if the response of service object is validated as a stream
+	 *
+	 * @param serviceObject
+	 * @return
+	 */
+	public static boolean isStreamingResponse(ServiceObject serviceObject) {
+		return isStreamingResponse(serviceObject, serviceObject.getResponse());
+	}
+
+	/**
+	 * returns true if response is validated as a stream
+	 *
+	 * @param serviceObject
+	 * @param response
+	 * @return
+	 */
+	public static boolean isStreamingResponse(ServiceObject serviceObject, Response response) {
+		if (response == null || !Config.getBooleanValue(API_RESPONSE_STREAMING_ENABLED))
+			return false;
+
+		String contentType = StringUtils.defaultString(response.getContentType());
+		if (!contentType.isEmpty() && !contentType.toLowerCase().contains("json"))
+			return false;
+
+		// content length is unknown for chunked responses
+		long minSize = Config.getIntValue(API_RESPONSE_STREAMING_MIN_SIZE);
+		if (minSize == -1)
+			minSize = DEFAULT_MIN_SIZE;
+		String contentLength = response.getHeader("Content-Length");
+		if (StringUtils.isNumeric(contentLength) && Long.parseLong(contentLength) < minSize)
+			return false;
+
+		return getPaths(serviceObject) != null;
+	}
+
+	/**
+	 * reads response body as a stream And keeps values for the json paths of
+	 * expected response And output parameters
+	 *
+	 * @param serviceObject
+	 * @return errors
+	 */
+	public static List<String> readResponse(ServiceObject serviceObject) {
+		List<String> errors = new ArrayList<String>();
+		Response response = serviceObject.getResponse();
+
+		// response is read once
+		if (JsonDocument.isResponseBodyRead(response))
+			return errors;
+
+		List<String> pathStrings = getPaths(serviceObject);
+		List<StreamedPath> paths = new ArrayList<StreamedPath>();
+		for (String path : pathStrings)
+			paths.add(new StreamedPath(path));
+
+		int previewSize = Config.getIntValue(API_RESPONSE_STREAMING_PREVIEW_SIZE);
+		if (previewSize < 0)
+			previewSize = DEFAULT_PREVIEW_SIZE;
+
+		PreviewInputStream stream = new PreviewInputStream(response.asInputStream(), previewSize);
+		try (JsonReader reader = new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+			List<Match> matches = new ArrayList<Match>();
+			for (StreamedPath path : paths)
+				matches.add(new Match(path, 0));
+			readNode(reader, matches);
+		} catch (IOException | JsonParseException | IllegalStateException e) {
+			errors.add("invalid json response: " + e.getMessage());
+		}
+
+		Map<String, Object> values = new LinkedHashMap<String, Object>();
+		JsonProvider provider = Configuration.defaultConfiguration().jsonProvider();
+		for (StreamedPath path : paths)
+			values.put(path.path, path.getResult(provider));
+
+		String preview = stream.getPreview();
+		JsonDocument.putStreamedResponse(response, preview, values);
+		TestLog.logPass("response streamed, bytes: " + stream.count + ". response preview: "
+				+ ServiceObject.normalizeLog(preview));
+		return errors;
+	}
+
+	/**
+	 * json paths of expected response And output parameters, as read by JsonHelper
+	 *
+	 * @param serviceObject
+	 * @return null if a criterion or path can not be streamed
+	 */
+	private static List<String> getPaths(ServiceObject serviceObject) {
+		List<String> paths = new ArrayList<String>();
+
+		// expected response: json path criteria or not empty
+		String expected = serviceObject.getExpectedResponse();
+		if (!expected.trim().isEmpty()) {
+			for (String criterion : DataHelper.getCriteria(expected)) {
+				criterion = DataHelper.removeLogicIdentifiers(criterion.trim());
+				criterion = Helper.removeSurroundingQuotes(Helper.stringRemoveLines(criterion));
+				if (criterion.trim().isEmpty() || criterion.startsWith(DataHelper.VERIFY_RESPONSE_NO_EMPTY))
+					continue;
+				if (!criterion.startsWith(DataHelper.VERIFY_JSON_PART_INDICATOR)
+						&& !criterion.startsWith(DataHelper.VERIFY_JSON_PART_INDICATOR_UNDERSCORE))
+					return null;
+				for (KeyValue keyword : DataHelper.getValidationMap(criterion)) {
+					if (!addPath(paths, Helper.removeSurroundingQuotes(keyword.key)))
+						return null;
+				}
+			}
+		}
+
+		// output parameters: json paths
+		String outputParams = serviceObject.getOutputParams();
+		if (!outputParams.isEmpty()) {
+			for (KeyValue keyword : DataHelper.getValidationMap(outputParams)) {
+				if (keyword.key.trim().startsWith(DataHelper.JSON_COMMAND.command.name()))
+					return null;
+				if (!addPath(paths, keyword.key))
+					return null;
+			}
+		}
+		return paths;
+	}
+
+	/**
+	 * adds path as read by JsonHelper.getJsonPathValue. eg. $.data.id
+	 *
+	 * @param paths
+	 * @param path
+	 * @return false if path can not be streamed
+	 */
+	private static boolean addPath(List<String> paths, String path) {
+		// parameters are replaced at validation
+		if (path.contains("<"))
+			return false;
+		if (path.startsWith(PREFIX))
+			path = path.replace(PREFIX, "");
+		if (path.equals(".") || path.isEmpty() || parseTokens(path) == null)
+			return false;
+		if (!paths.contains(PREFIX + path))
+			paths.add(PREFIX + path);
+		return true;
+	}
+
+	/**
+	 * path tokens. property names, array indexes And wildcards
+	 *
+	 * @param path path without $. prefix
+	 * @return null if not supported
+	 */
+	private static List<PathToken> parseTokens(String path) {
+		List<PathToken> tokens = new ArrayList<PathToken>();
+		String[] segments = path.split("\\.", -1);
+		for (int i = 0; i < segments.length; i++) {
+			Matcher segment = PATH_SEGMENT.matcher(segments[i]);
+			if (!segment.matches())
+				return null;
+
+			String name = segment.group(1);
+			String indexes = segment.group(2);
+			if (name.isEmpty() && (i > 0 || indexes.isEmpty()))
+				return null;
+			if (name.equals("*"))
+				tokens.add(PathToken.wildcard());
+			else if (!name.isEmpty())
+				tokens.add(PathToken.property(name));
+
+			Matcher index = PATH_INDEX.matcher(indexes);
+			while (index.find()) {
+				if (index.group(1).equals("*"))
+					tokens.add(PathToken.wildcard());
+				else
+					tokens.add(PathToken.index(Integer.parseInt(index.group(1))));
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * reads the next node. nodes not on a path are skipped
+	 *
+	 * @param reader
+	 * @param matches paths the node is on, with node depth
+	 * @throws IOException
+	 */
+	private static void readNode(JsonReader reader, List<Match> matches) throws IOException {
+		if (matches.isEmpty()) {
+			reader.skipValue();
+			return;
+		}
+
+		// node value is kept if a path ends at the node. remaining paths are evaluated on the value
+		for (Match match : matches) {
+			if (match.depth == match.path.tokens.size()) {
+				JsonElement node = JsonParser.parseReader(reader);
+				for (Match nodeMatch : matches)
+					evaluateTree(node, nodeMatch.path, nodeMatch.depth);
+				return;
+			}
+		}
+
+		for (Match match : matches) {
+			if (match.depth == match.path.definiteLength)
+				match.path.isPrefixFound = true;
+		}
+
+		JsonToken token = reader.peek();
+		if (token == JsonToken.BEGIN_OBJECT) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				readNode(reader, getChildMatches(matches, name, -1));
+			}
+			reader.endObject();
+		} else if (token == JsonToken.BEGIN_ARRAY) {
+			int index = 0;
+			reader.beginArray();
+			while (reader.hasNext())
+				readNode(reader, getChildMatches(matches, null, index++));
+			reader.endArray();
+		} else
+			reader.skipValue();
+	}
+
+	/**
+	 * evaluates path from depth on a node read into memory
+	 *
+	 * @param node
+	 * @param path
+	 * @param depth
+	 */
+	private static void evaluateTree(JsonElement node, StreamedPath path, int depth) {
+		if (depth == path.definiteLength)
+			path.isPrefixFound = true;
+		if (depth == path.tokens.size()) {
+			path.values.add(node);
+			return;
+		}
+
+		PathToken token = path.tokens.get(depth);
+		if (node.isJsonObject()) {
+			for (Map.Entry<String, JsonElement> field : node.getAsJsonObject().entrySet()) {
+				if (token.isMatch(field.getKey(), -1))
+					evaluateTree(field.getValue(), path, depth + 1);
+			}
+		} else if (node.isJsonArray()) {
+			JsonArray array = node.getAsJsonArray();
+			for (int i = 0; i < array.size(); i++) {
+				if (token.isMatch(null, i))
+					evaluateTree(array.get(i), path, depth + 1);
+			}
+		}
+	}
+
+	private static List<Match> getChildMatches(List<Match> matches, String name, int index) {
+		List<Match> childMatches = new ArrayList<Match>();
+		for (Match match : matches) {
+			if (match.path.tokens.get(match.depth).isMatch(name, index))
+				childMatches.add(new Match(match.path, match.depth + 1));
+		}
+		return childMatches;
+	}
+
+	/**
+	 * json path token
+	 */
+	private static class PathToken {
+		private final String name; // property name, null for index And wildcard
+		private final int index; // array index, -1 for property And wildcard
+
+		private PathToken(String name, int index) {
+			this.name = name;
+			this.index = index;
+		}
+
+		static PathToken property(String name) {
+			return new PathToken(name, -1);
+		}
+
+		static PathToken index(int index) {
+			return new PathToken(null, index);
+		}
+
+		static PathToken wildcard() {
+			return new PathToken(null, -1);
+		}
+
+		boolean isDefinite() {
+			return name != null || index != -1;
+		}
+
+		/**
+		 * @param key        property name if parent is object, else null
+		 * @param arrayIndex array index if parent is array
+		 * @return
+		 */
+		boolean isMatch(String key, int arrayIndex) {
+			if (name != null)
+				return name.equals(key);
+			if (index != -1)
+				return key == null && index == arrayIndex;
+			return true;
+		}
+	}
+
+	/**
+	 * json path And values found in the stream
+	 */
+	private static class StreamedPath {
+		private final String path;
+		private final List<PathToken> tokens;
+		private final int definiteLength; // tokens before the first wildcard
+		private final List<JsonElement> values = new ArrayList<JsonElement>();
+
+		// node at the end of the definite tokens is found
+		private boolean isPrefixFound = false;
+
+		StreamedPath(String path) {
+			this.path = path;
+			this.tokens = parseTokens(path.substring(PREFIX.length()));
+			int length = 0;
+			while (length < tokens.size() && tokens.get(length).isDefinite())
+				length++;
+			this.definiteLength = length;
+		}
+
+		/**
+		 * result as returned by json path with always return list option
+		 *
+		 * @param provider
+		 * @return null if path is not found
+		 */
+		Object getResult(JsonProvider provider) {
+			// definite path: one value
+			if (definiteLength == tokens.size() && values.isEmpty())
+				return null;
+
+			// indefinite path: definite tokens must resolve to a node
+			if (definiteLength < tokens.size() && !isPrefixFound)
+				return null;
+
+			Object result = provider.createArray();
+			int i = 0;
+			for (JsonElement value : values)
+				provider.setArrayIndex(result, i++, provider.parse(value.toString()));
+			return result;
+		}
+	}
+
+	/**
+	 * node on path at depth
+	 */
+	private static class Match {
+		private final StreamedPath path;
+		private final int depth;
+
+		Match(StreamedPath path, int depth) {
+			this.path = path;
+			this.depth = depth;
+		}
+	}
+
+	/**
+	 * keeps the first bytes read for logs
+	 */
+	private static class PreviewInputStream extends FilterInputStream {
+		private final byte[] preview;
+		private int previewLength = 0;
+		private long count = 0;
+
+		PreviewInputStream(InputStream in, int previewSize) {
+			super(in);
+			this.preview = new byte[previewSize];
+		}
+
+		@Override
+		public int read() throws IOException {
+			int value = super.read();
+			if (value != -1) {
+				if (previewLength < preview.length)
+					preview[previewLength++] = (byte) value;
+				count++;
+			}
+			return value;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = super.read(buffer, offset, length);
+			if (read > 0) {
+				int copy = Math.min(read, preview.length - previewLength);
+				System.arraycopy(buffer, offset, preview, previewLength, copy);
+				previewLength += copy;
+				count += read;
+			}
+			return read;
+		}
+
+		String getPreview() {
+			String value = new String(preview, 0, previewLength, StandardCharsets.UTF_8);
+			return count > previewLength ? value + "..." : value;
+		}
+	}
+}
@@ -0,0 +1,351 @@
+package core.apiCore.helpers;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.StringDeserializer;
+
+import core.apiCore.interfaces.KafkaInterface;
+import core.helpers.Helper;
+import core.support.configReader.Config;
+import core.support.logger.TestLog;
+import core.support.objects.MessageObject;
+import core.support.objects.MessageObject.messageType;
+
+/**
+ * background kafka consumers for outbound topics
+ *
+ * a consumer is started on first use per bootstrap servers, group And topic,
+ * And runs until the suite finishes. partitions of the topic are assigned
+ * directly, without group rebalance, And split across consumer threads, so
+ * partitions are fetched in parallel. received records are added to
+ * MessageObject.outboundMessages as they arrive, waking up tests waiting for
+ * them
+ *
+ * if the topic has no partitions yet, partitions are looked up again for
+ * partition wait seconds. if the topic is still not found, consumers subscribe
+ * to the topic with kafka.group.id And partitions are assigned by the group
+ * when the topic is created. subscribing requires a group id
+ *
+ * without kafka.group.id, consumers start from the earliest offset And read
+ * the full history of the topic into the outbound messages, evicted by size
+ * And age. set kafka.consumer.seekToRunStart to read records of the current
+ * run only
+ *
+ * if a consumer fails, eg. on poll or deserialization error, the consumers of
+ * the topic are stopped And removed. the next test using the topic starts new
+ * consumers
+ *
+ * config:
+ * kafka.consumer.threads: consumer threads per topic, each fetching a share of the partitions. default: 1
+ * kafka.consumer.seekToRunStart: read records produced after the test run started only. default: false
+ * kafka.consumer.partitionWaitSeconds: wait for partitions of a new topic. default: 10
+ */
+public class KafkaOutboundConsumer {
+
+	public static final String KAFKA_CONSUMER_THREADS = "kafka.consumer.threads";
+	public static final String KAFKA_CONSUMER_SEEK_TO_RUN_START = "kafka.consumer.seekToRunStart";
+	public static final String KAFKA_CONSUMER_PARTITION_WAIT_SECONDS = "kafka.consumer.partitionWaitSeconds";
+
+	private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+	private static final int DEFAULT_PARTITION_WAIT_SECONDS = 10;
+	private static final long PARTITION_RETRY_MILLIS = 1000;
+	private static final long JOIN_TIMEOUT_MILLIS = 5000;
+	private static final long RUN_START_MILLIS = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+	// key: bootstrap servers, group, topic
+	private static final Map<String, KafkaOutboundConsumer> consumers = new ConcurrentHashMap<String, KafkaOutboundConsumer>();
+
+	private final String key;
+	private final List<KafkaConsumer<String, String>> partitionConsumers = new ArrayList<KafkaConsumer<String, String>>();
+	private final List<Thread> threads = new ArrayList<Thread>();
+	private volatile boolean isRunning = true;
+
+	// partitions seeked to run start. partitions assigned again by the group are not seeked again
+	private final Set<TopicPartition> seekedPartitions = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * starts consumer for outbound topic from config, if not started. consumers
+	 * are created on the calling thread, outside of the consumer registry, as
+	 * partition lookup waits for the broker
+	 *
+	 * @param topic
+	 */
+	public static void start(String topic) {
+		// config is read on the test thread. consumer threads have no test context
+		String servers = Config.getValue(KafkaInterface.KAFKA_SERVER_URL);
+		String groupId = Config.getValue(KafkaInterface.KAFKA_GROUP_ID);
+		int threadCount = Math.max(Config.getIntValue(KAFKA_CONSUMER_THREADS), 1);
+		boolean isSeekToRunStart = Config.getBooleanValue(KAFKA_CONSUMER_SEEK_TO_RUN_START);
+		int partitionWaitSeconds = Config.getIntValue(KAFKA_CONSUMER_PARTITION_WAIT_SECONDS);
+		if (partitionWaitSeconds < 0)
+			partitionWaitSeconds = DEFAULT_PARTITION_WAIT_SECONDS;
+
+		String key = servers + "|" + groupId + "|" + topic;
+		if (consumers.containsKey(key))
+			return;
+
+		KafkaOutboundConsumer consumer = new KafkaOutboundConsumer(key, servers, groupId, topic, threadCount,
+				isSeekToRunStart, partitionWaitSeconds);
+
+		// consumer started by another test in the meantime
+		if (consumers.putIfAbsent(key, consumer) != null) {
+			consumer.close();
+			return;
+		}
+		for (Thread thread : consumer.threads)
+			thread.start();
+	}
+
+	/**
+	 * stops all consumers
+	 */
+	public static void shutdown() {
+		for (KafkaOutboundConsumer consumer : consumers.values())
+			consumer.stop();
+		consumers.clear();
+	}
+
+	/**
+	 * creates consumers for the partitions of the topic. threads are started by
+	 * the caller
+	 */
+	private KafkaOutboundConsumer(String key, String servers, String groupId, String topic, int threadCount,
+			boolean isSeekToRunStart, int partitionWaitSeconds) {
+		this.key = key;
+		Properties props = new Properties();
+		props.put("bootstrap.servers", servers);
+		props.put("auto.offset.reset", "earliest");
+		props.put("key.deserializer", StringDeserializer.class);
+		props.put("value.deserializer", StringDeserializer.class);
+
+		// offsets are committed for the group. without group, consumers start from the earliest offset
+		if (!groupId.isEmpty()) {
+			props.put("group.id", groupId);
+			props.put("enable.auto.commit", "true");
+			props.put("auto.commit.interval.ms", "1000");
+		} else
+			props.put("enable.auto.commit", "false");
+
+		KafkaConsumer<String, String> consumer = new KafkaConsumer<String, String>(props);
+		partitionConsumers.add(consumer);
+		List<TopicPartition> partitions = getPartitions(consumer, topic, partitionWaitSeconds);
+
+		// topic not created yet. partitions are assigned by the group when created
+		if (partitions.isEmpty()) {
+			if (groupId.isEmpty()) {
+				close();
+				Helper.assertFalse("kafka topic: " + topic + " not found after " + partitionWaitSeconds
+						+ " seconds. set " + KafkaInterface.KAFKA_GROUP_ID + " to subscribe to topics created later");
+			}
+
+			for (int i = 1; i < threadCount; i++)
+				partitionConsumers.add(new KafkaConsumer<String, String>(props));
+			for (int i = 0; i < partitionConsumers.size(); i++) {
+				KafkaConsumer<String, String> groupConsumer = partitionConsumers.get(i);
+				groupConsumer.subscribe(Collections.singletonList(topic),
+						getRebalanceListener(groupConsumer, isSeekToRunStart));
+				threads.add(newThread(groupConsumer, topic, i));
+			}
+			TestLog.ConsoleLog("kafka topic: " + topic + " has no partitions yet. subscribed with group: " + groupId
+					+ " consumers: " + partitionConsumers.size());
+			return;
+		}
+
+		// split partitions across consumers
+		int consumerCount = Math.max(Math.min(threadCount, partitions.size()), 1);
+		for (int i = 1; i < consumerCount; i++)
+			partitionConsumers.add(new KafkaConsumer<String, String>(props));
+
+		for (int i = 0; i < consumerCount; i++) {
+			List<TopicPartition> assigned = new ArrayList<TopicPartition>();
+			for (int j = i; j < partitions.size(); j += consumerCount)
+				assigned.add(partitions.get(j));
+
+			KafkaConsumer<String, String> partitionConsumer = partitionConsumers.get(i);
+			partitionConsumer.assign(assigned);
+			if (isSeekToRunStart)
+				seekToRunStart(partitionConsumer, assigned);
+
+			threads.add(newThread(partitionConsumer, topic, i));
+		}
+		TestLog.ConsoleLog("kafka outbound consumer for topic: " + topic + " partitions: " + partitions.size()
+				+ " consumers: " + consumerCount);
+	}
+
+	/**
+	 * partitions of topic. looked up again until found or wait seconds pass
+	 *
+	 * @param consumer
+	 * @param topic
+	 * @param waitSeconds
+	 * @return empty if topic is not found
+	 */
+	private static List<TopicPartition> getPartitions(KafkaConsumer<String, String> consumer, String topic,
+			int waitSeconds) {
+		List<TopicPartition> partitions = new ArrayList<TopicPartition>();
+		long deadline = System.currentTimeMillis() + waitSeconds * 1000L;
+		while (true) {
+			List<PartitionInfo> partitionInfos = consumer.partitionsFor(topic);
+			if (partitionInfos != null) {
+				for (PartitionInfo info : partitionInfos)
+					partitions.add(new TopicPartition(info.topic(), info.partition()));
+			}
+			if (!partitions.isEmpty() || System.currentTimeMillis() >= deadline)
+				return partitions;
+			Helper.waitForSeconds(PARTITION_RETRY_MILLIS / 1000d);
+		}
+	}
+
+	/**
+	 * seeks partitions assigned by the group to run start, if set. partitions are
+	 * seeked on first assignment only, later rebalances resume from committed
+	 * offsets
+	 *
+	 * @param consumer
+	 * @param isSeekToRunStart
+	 * @return
+	 */
+	private ConsumerRebalanceListener getRebalanceListener(KafkaConsumer<String, String> consumer,
+			boolean isSeekToRunStart) {
+		return new ConsumerRebalanceListener() {
+			@Override
+			public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+			}
+
+			@Override
+			public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+				if (!isSeekToRunStart)
+					return;
+				List<TopicPartition> newPartitions = new ArrayList<TopicPartition>();
+				for (TopicPartition partition : partitions) {
+					if (seekedPartitions.add(partition))
+						newPartitions.add(partition);
+				}
+				if (!newPartitions.isEmpty())
+					seekToRunStart(consumer, newPartitions);
+			}
+		};
+	}
+
+	private Thread newThread(KafkaConsumer<String, String> consumer, String topic, int index) {
+		Thread thread = new Thread(() -> consume(consumer, topic), "kafka-outbound-" + topic + "-" + index);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * seeks partitions to the first record produced after the test run started
+	 *
+	 * @param consumer
+	 * @param partitions
+	 */
+	private static void seekToRunStart(KafkaConsumer<String, String> consumer, List<TopicPartition> partitions) {
+		Map<TopicPartition, Long> timestamps = new HashMap<TopicPartition, Long>();
+		for (TopicPartition partition : partitions)
+			timestamps.put(partition, RUN_START_MILLIS);
+
+		List<TopicPartition> noRecords = new ArrayList<TopicPartition>();
+		for (Map.Entry<TopicPartition, OffsetAndTimestamp> offset : consumer.offsetsForTimes(timestamps).entrySet()) {
+			if (offset.getValue() == null)
+				noRecords.add(offset.getKey());
+			else
+				consumer.seek(offset.getKey(), offset.getValue().offset());
+		}
+
+		// no records after run start yet
+		consumer.seekToEnd(noRecords);
+	}
+
+	/**
+	 * polls records until stopped And adds them to outbound messages. on failure,
+	 * consumers of the topic are stopped And removed, so they are started again
+	 * on next use
+	 *
+	 * @param consumer
+	 * @param topic
+	 */
+	private void consume(KafkaConsumer<String, String> consumer, String topic) {
+		try {
+			while (isRunning) {
+				ConsumerRecords<String, String> consumerRecords = consumer.poll(POLL_TIMEOUT);
+				if (consumerRecords.isEmpty())
+					continue;
+
+				for (ConsumerRecord<String, String> record : consumerRecords) {
+					List<String> headers = new ArrayList<String>();
+					for (Header header : record.headers()) {
+						headers.add(header.value().toString());
+					}
+
+					MessageObject message = new MessageObject().withMessageType(messageType.KAFKA)
+							.withMessageId(record.key()).withMessage(record.value()).withTopic(record.topic())
+							.withHeader(headers);
+					MessageObject.outboundMessages.add(message);
+				}
+			}
+		} catch (WakeupException e) {
+			// stopped
+			e.getMessage();
+		} catch (Exception e) {
+			TestLog.ConsoleLogError("kafka outbound consumer for topic: " + topic + " failed: " + e.getMessage()
+					+ ". consumers are started again on next use");
+			e.printStackTrace();
+			remove();
+		} finally {
+			consumer.close();
+		}
+	}
+
+	/**
+	 * stops consumers of the topic without waiting And removes them from the
+	 * registry
+	 */
+	private void remove() {
+		isRunning = false;
+		consumers.remove(key, this);
+		for (KafkaConsumer<String, String> consumer : partitionConsumers)
+			consumer.wakeup();
+	}
+
+	/**
+	 * closes consumers of threads not started
+	 */
+	private void close() {
+		for (KafkaConsumer<String, String> consumer : partitionConsumers)
+			consumer.close();
+		partitionConsumers.clear();
+	}
+
+	private void stop() {
+		isRunning = false;
+		for (KafkaConsumer<String, String> consumer : partitionConsumers)
+			consumer.wakeup();
+
+		for (Thread thread : threads) {
+			try {
+				thread.join(JOIN_TIMEOUT_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package core.apiCore.helpers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import core.apiCore.interfaces.KafkaInterface;
+import core.support.configReader.Config;
+import core.support.logger.TestLog;
+
+/**
+ * registry of shared kafka producers
+ *
+ * producers are keyed by bootstrap servers And batching settings. a producer is
+ * created on first use And shared by all tests, so connections And topic
+ * metadata are reused across messages. producers are thread safe. records are
+ * sent without blocking And acknowledgements are awaited together, so records
+ * sent together are batched by the producer
+ *
+ * config:
+ * kafka.producer.lingerMs: time to wait for more records before sending a batch. default: 5
+ * kafka.producer.batchSize: max batch size in bytes per partition. default: 16384
+ */
+public class KafkaProducerRegistry {
+
+	public static final String KAFKA_PRODUCER_LINGER_MS = "kafka.producer.lingerMs";
+	public static final String KAFKA_PRODUCER_BATCH_SIZE = "kafka.producer.batchSize";
+
+	private static final int DEFAULT_LINGER_MS = 5;
+	private static final int DEFAULT_BATCH_SIZE = 16384;
+	private static final int DEFAULT_TIMEOUT_SECONDS = 60;
+	private static final int CLOSE_TIMEOUT_SECONDS = 10;
+
+	// key: bootstrap servers, linger, batch size
+	private static final Map<String, KafkaProducer<String, String>> producers = new ConcurrentHashMap<String, KafkaProducer<String, String>>();
+
+	/**
+	 * gets producer for current config settings. producer is created on first use
+	 *
+	 * @return
+	 */
+	public static KafkaProducer<String, String> getProducer() {
+		String servers = Config.getValue(KafkaInterface.KAFKA_SERVER_URL);
+		int lingerMs = getIntValue(KAFKA_PRODUCER_LINGER_MS, DEFAULT_LINGER_MS);
+		int batchSize = getIntValue(KAFKA_PRODUCER_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+
+		String key = servers + "|" + lingerMs + "|" + batchSize;
+		return producers.computeIfAbsent(key, value -> {
+			Properties properties = new Properties();
+			properties.put("bootstrap.servers", servers);
+			properties.put("key.serializer", StringSerializer.class);
+			properties.put("value.serializer", StringSerializer.class);
+			properties.put("retries", "3");
+			properties.put("linger.ms", lingerMs);
+			properties.put("batch.size", batchSize);
+			return new KafkaProducer<String, String>(properties);
+		});
+	}
+
+	/**
+	 * sends records without blocking, Then waits for all acknowledgements
+	 *
+	 * @param records
+	 * @return record metadata, in order of records
+	 * @throws Exception if a record is not acknowledged within
+	 *                   kafka.timeout.seconds
+	 */
+	public static List<RecordMetadata> sendAndWait(List<ProducerRecord<String, String>> records) throws Exception {
+		KafkaProducer<String, String> producer = getProducer();
+		int timeoutSeconds = getIntValue(KafkaInterface.KAFKA_TIMEOUT_SECONDS, DEFAULT_TIMEOUT_SECONDS);
+
+		List<Future<RecordMetadata>> futures = new ArrayList<Future<RecordMetadata>>();
+		for (ProducerRecord<String, String> record : records)
+			futures.add(producer.send(record));
+
+		List<RecordMetadata> acknowledgements = new ArrayList<RecordMetadata>();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+		for (Future<RecordMetadata> future : futures) {
+			long remaining = Math.max(deadline - System.nanoTime(), 0);
+			acknowledgements.add(future.get(remaining, TimeUnit.NANOSECONDS));
+		}
+		return acknowledgements;
+	}
+
+	/**
+	 * closes all producers. pending records are sent before closing
+	 */
+	public static void shutdown() {
+		for (KafkaProducer<String, String> producer : producers.values()) {
+			try {
+				producer.close(Duration.ofSeconds(CLOSE_TIMEOUT_SECONDS));
+			} catch (Exception e) {
+				TestLog.ConsoleLog("kafka producer close failed: " + e.getMessage());
+			}
+		}
+		producers.clear();
+	}
+
+	private static int getIntValue(String key, int defaultValue) {
+		int value = Config.getIntValue(key);
+		return value < 0 ? defaultValue : value;
+	}
+}
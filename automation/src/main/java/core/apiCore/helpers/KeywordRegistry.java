@@ -0,0 +1,143 @@
+package core.apiCore.helpers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import core.apiCore.TestDataProvider;
+import core.helpers.Helper;
+import core.support.configReader.Config;
+import core.support.objects.ServiceObject;
+
+/**
+ * shared registry of api keywords from keyword csv files at api.keywordPath
+ *
+ * keywords are loaded once per suite And shared by all test objects. if
+ * api.keyword.reload.isEnabled is set, keyword files are checked for changes on
+ * lookup And the registry is rebuilt when a file is added, removed or modified
+ */
+public class KeywordRegistry {
+
+	public static final String API_KEYWORD_RELOAD_ENABLED = "api.keyword.reload.isEnabled";
+
+	private static volatile KeywordRegistry registry = null;
+
+	private final String keywordPath;
+	private final Map<String, Long> fileSnapshot; // key: file path, value: last modified
+	private final Map<String, Object[]> keywords; // key: test case id
+
+	private KeywordRegistry(String keywordPath, Map<String, Long> fileSnapshot, Map<String, Object[]> keywords) {
+		this.keywordPath = keywordPath;
+		this.fileSnapshot = fileSnapshot;
+		this.keywords = keywords;
+	}
+
+	/**
+	 * loads keyword registry if not loaded, or keyword path has changed
+	 */
+	public static void load() {
+		getRegistry();
+	}
+
+	/**
+	 * gets api keyword definition. a new service object is returned per call, as
+	 * service objects are updated by the interfaces
+	 *
+	 * @param key test case id of the keyword
+	 * @return service object, or null if keyword not found
+	 */
+	public static ServiceObject getKeyword(String key) {
+		Object[] keyword = getRegistry().keywords.get(key);
+		if (keyword == null)
+			return null;
+		return CsvReader.mapToServiceObject(keyword.clone());
+	}
+
+	/**
+	 * returns true if keyword is defined
+	 *
+	 * @param key
+	 * @return
+	 */
+	public static boolean hasKeyword(String key) {
+		return getRegistry().keywords.containsKey(key);
+	}
+
+	/**
+	 * clears registry. will be rebuilt on next lookup
+	 */
+	public static synchronized void reset() {
+		registry = null;
+	}
+
+	private static KeywordRegistry getRegistry() {
+		String keywordPath = Helper.getFullPath(Config.getValue(TestDataProvider.API_KEYWORD_PATH));
+
+		KeywordRegistry current = registry;
+		if (current != null && current.keywordPath.equals(keywordPath) && !isReloadRequired(current))
+			return current;
+
+		synchronized (KeywordRegistry.class) {
+			current = registry;
+			if (current == null || !current.keywordPath.equals(keywordPath) || isReloadRequired(current)) {
+				current = build(keywordPath);
+				registry = current;
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * builds registry from all keyword csv files in keyword path
+	 *
+	 * @param keywordPath
+	 * @return
+	 */
+	private static KeywordRegistry build(String keywordPath) {
+		Map<String, Long> fileSnapshot = new HashMap<String, Long>();
+		Map<String, Object[]> keywords = new HashMap<String, Object[]>();
+
+		for (File file : getKeywordFiles(keywordPath)) {
+			fileSnapshot.put(file.getAbsolutePath(), file.lastModified());
+
+			List<Object[]> testCases = CsvReader.getCsvTestList(file);
+			for (Object[] testCase : testCases) {
+				ServiceObject serviceObject = CsvReader.mapToServiceObject(testCase);
+				keywords.put(serviceObject.getTestCaseID(), testCase);
+			}
+		}
+		return new KeywordRegistry(keywordPath, Collections.unmodifiableMap(fileSnapshot),
+				Collections.unmodifiableMap(keywords));
+	}
+
+	/**
+	 * returns true if reload is enabled And keyword files have changed
+	 *
+	 * @param current
+	 * @return
+	 */
+	private static boolean isReloadRequired(KeywordRegistry current) {
+		if (!Config.getBooleanValue(API_KEYWORD_RELOAD_ENABLED))
+			return false;
+
+		List<File> files = getKeywordFiles(current.keywordPath);
+		if (files.size() != current.fileSnapshot.size())
+			return true;
+
+		for (File file : files) {
+			Long lastModified = current.fileSnapshot.get(file.getAbsolutePath());
+			if (lastModified == null || lastModified != file.lastModified())
+				return true;
+		}
+		return false;
+	}
+
+	private static List<File> getKeywordFiles(String keywordPath) {
+		if (!new File(keywordPath).exists())
+			return new ArrayList<File>();
+		return Helper.getFileListByType(keywordPath, ".csv");
+	}
+}
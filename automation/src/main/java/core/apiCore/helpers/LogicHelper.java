@@ -0,0 +1,242 @@
+package core.apiCore.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import core.helpers.Helper;
+
+/**
+ * evaluates boolean logic strings produced by DataHelper.getValidationPattern
+ * eg. ( true ) && ( false || true )
+ *
+ * supports: true, false, &&, ||, ! and parentheses, with javascript precedence
+ * ( ! before && before || )
+ *
+ * compiled expressions are cached by shape, where each true/false literal is
+ * replaced by a slot. eg. "( true ) && ( false || true )" and "( false ) && (
+ * true || true )" share the same compiled expression: "( ? ) && ( ? || ? )"
+ */
+public class LogicHelper {
+
+	private static final String TRUE = "true";
+	private static final String FALSE = "false";
+	private static final String AND = "&&";
+	private static final String OR = "||";
+	private static final String NOT = "!";
+	private static final String OPEN = "(";
+	private static final String CLOSE = ")";
+	private static final String SLOT = "?";
+
+	// key: expression shape. eg. "( ? ) && ( ? || ? )"
+	private static final Map<String, LogicNode> compiledLogic = new ConcurrentHashMap<String, LogicNode>();
+
+	/**
+	 * evaluates string logic. eg ((true) && (false || false || true)) returns true
+	 *
+	 * @param logicString
+	 * @return
+	 */
+	public static boolean evaluate(String logicString) {
+		List<String> tokens = tokenize(logicString);
+		Helper.assertTrue("logic expression is empty: " + logicString, !tokens.isEmpty());
+
+		// separate literal values from the expression shape
+		boolean[] values = new boolean[tokens.size()];
+		int valueCount = 0;
+		StringBuilder shape = new StringBuilder();
+		for (String token : tokens) {
+			if (token.equals(TRUE) || token.equals(FALSE)) {
+				values[valueCount++] = token.equals(TRUE);
+				shape.append(SLOT);
+			} else
+				shape.append(token);
+			shape.append(' ');
+		}
+
+		LogicNode logic = compiledLogic.get(shape.toString());
+		if (logic == null) {
+			logic = new LogicParser(tokens, logicString).parse();
+			compiledLogic.put(shape.toString(), logic);
+		}
+		return logic.evaluate(values);
+	}
+
+	/**
+	 * splits logic string into tokens: true, false, &&, ||, !, (, )
+	 *
+	 * @param logicString
+	 * @return
+	 */
+	private static List<String> tokenize(String logicString) {
+		List<String> tokens = new ArrayList<String>();
+		int length = logicString.length();
+		int index = 0;
+		while (index < length) {
+			char current = logicString.charAt(index);
+			if (Character.isWhitespace(current)) {
+				index++;
+			} else if (current == '(' || current == ')') {
+				tokens.add(String.valueOf(current));
+				index++;
+			} else if (logicString.startsWith(AND, index)) {
+				tokens.add(AND);
+				index += AND.length();
+			} else if (logicString.startsWith(OR, index)) {
+				tokens.add(OR);
+				index += OR.length();
+			} else if (current == '!') {
+				tokens.add(NOT);
+				index++;
+			} else if (logicString.startsWith(TRUE, index) && isWordEnd(logicString, index + TRUE.length())) {
+				tokens.add(TRUE);
+				index += TRUE.length();
+			} else if (logicString.startsWith(FALSE, index) && isWordEnd(logicString, index + FALSE.length())) {
+				tokens.add(FALSE);
+				index += FALSE.length();
+			} else {
+				Helper.assertFalse("invalid logic expression: " + logicString + " at position: " + index);
+			}
+		}
+		return tokens;
+	}
+
+	private static boolean isWordEnd(String value, int index) {
+		return index >= value.length() || !Character.isLetterOrDigit(value.charAt(index));
+	}
+
+	/**
+	 * recursive descent parser for the logic grammar:
+	 * or    := and ( "||" and )*
+	 * and   := unary ( "&&" unary )*
+	 * unary := "!" unary | "(" or ")" | literal
+	 */
+	private static class LogicParser {
+		private final List<String> tokens;
+		private final String logicString;
+		private int position = 0;
+		private int slot = 0;
+
+		LogicParser(List<String> tokens, String logicString) {
+			this.tokens = tokens;
+			this.logicString = logicString;
+		}
+
+		LogicNode parse() {
+			LogicNode node = parseOr();
+			if (position != tokens.size())
+				fail("unexpected token: " + tokens.get(position));
+			return node;
+		}
+
+		private LogicNode parseOr() {
+			List<LogicNode> operands = new ArrayList<LogicNode>();
+			operands.add(parseAnd());
+			while (isNext(OR)) {
+				position++;
+				operands.add(parseAnd());
+			}
+			return operands.size() == 1 ? operands.get(0) : new OrNode(operands);
+		}
+
+		private LogicNode parseAnd() {
+			List<LogicNode> operands = new ArrayList<LogicNode>();
+			operands.add(parseUnary());
+			while (isNext(AND)) {
+				position++;
+				operands.add(parseUnary());
+			}
+			return operands.size() == 1 ? operands.get(0) : new AndNode(operands);
+		}
+
+		private LogicNode parseUnary() {
+			if (position >= tokens.size())
+				fail("unexpected end of expression");
+
+			String token = tokens.get(position++);
+			if (token.equals(NOT))
+				return new NotNode(parseUnary());
+			if (token.equals(OPEN)) {
+				LogicNode node = parseOr();
+				if (!isNext(CLOSE))
+					fail("missing closing parenthesis");
+				position++;
+				return node;
+			}
+			if (token.equals(TRUE) || token.equals(FALSE))
+				return new ValueNode(slot++);
+
+			fail("unexpected token: " + token);
+			return null;
+		}
+
+		private boolean isNext(String token) {
+			return position < tokens.size() && tokens.get(position).equals(token);
+		}
+
+		private void fail(String message) {
+			Helper.assertFalse("invalid logic expression: " + logicString + ": " + message);
+		}
+	}
+
+	private interface LogicNode {
+		boolean evaluate(boolean[] values);
+	}
+
+	private static class ValueNode implements LogicNode {
+		private final int slot;
+
+		ValueNode(int slot) {
+			this.slot = slot;
+		}
+
+		public boolean evaluate(boolean[] values) {
+			return values[slot];
+		}
+	}
+
+	private static class NotNode implements LogicNode {
+		private final LogicNode operand;
+
+		NotNode(LogicNode operand) {
+			this.operand = operand;
+		}
+
+		public boolean evaluate(boolean[] values) {
+			return !operand.evaluate(values);
+		}
+	}
+
+	private static class AndNode implements LogicNode {
+		private final LogicNode[] operands;
+
+		AndNode(List<LogicNode> operands) {
+			this.operands = operands.toArray(new LogicNode[operands.size()]);
+		}
+
+		public boolean evaluate(boolean[] values) {
+			for (LogicNode operand : operands) {
+				if (!operand.evaluate(values))
+					return false;
+			}
+			return true;
+		}
+	}
+
+	private static class OrNode implements LogicNode {
+		private final LogicNode[] operands;
+
+		OrNode(List<LogicNode> operands) {
+			this.operands = operands.toArray(new LogicNode[operands.size()]);
+		}
+
+		public boolean evaluate(boolean[] values) {
+			for (LogicNode operand : operands) {
+				if (operand.evaluate(values))
+					return true;
+			}
+			return false;
+		}
+	}
+}
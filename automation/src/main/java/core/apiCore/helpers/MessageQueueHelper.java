@@ -5,7 +5,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
@@ -17,6 +16,7 @@ import core.apiCore.ServiceManager;
 import core.apiCore.interfaces.KafkaInterface;
 import core.apiCore.interfaces.RabbitMqInterface;
 import core.apiCore.interfaces.ServiceBusInterface;
+import core.apiCore.interfaces.TestBrokerInterface;
 import core.helpers.Helper;
 import core.helpers.StopWatchHelper;
 import core.support.configReader.Config;
@@ -24,6 +24,7 @@ import core.support.logger.TestLog;
 import core.support.objects.KeyValue;
 import core.support.objects.MessageObject;
 import core.support.objects.MessageObject.messageType;
+import core.support.objects.OutboundMessageStore.MessageWaiter;
 import core.support.objects.ServiceObject;
 
 public class MessageQueueHelper {
@@ -60,24 +61,36 @@ public class MessageQueueHelper {
 		do {
 			lastLogged = MessageQueueHelper.logPerInterval(interval, watch, lastLogged, filteredMessages.size());
 
-			// gets messages and stores them in outboundMessages hashmap
-			getOutboundMessages(messageType);
-
-			// filters based on message id
-			filteredMessages.addAll(MessageQueueHelper.filterOutboundMessage(messageId));
-
-			// validate message count
-			errorMessages = validateExpectedMessageCount(serviceObject.getExpectedResponse(),
-					getMessageList(filteredMessages));
-
-			// validates messages. will retry on error if expected number of messages not set
-			if (errorMessages.isEmpty()) {
-				printAllFilteredMessages(filteredMessages);
-				errorMessages.addAll((validateMessages(serviceObject, filteredMessages)));
-				
-				// if expected fixed number of messages, at this point we have met that requirement
-				if(isExpectingMessageCount(serviceObject.getExpectedResponse()))
-					break;
+			// messages added from here on wake up the wait below
+			MessageWaiter waiter = MessageObject.outboundMessages.register(messageId,
+					Config.getValueList(RESPONSE_IDENTIFIER));
+			try {
+				// gets messages and stores them in outboundMessages hashmap
+				getOutboundMessages(messageType);
+
+				// filters based on message id
+				filteredMessages.addAll(MessageQueueHelper.filterOutboundMessage(messageId));
+
+				// validate message count
+				errorMessages = validateExpectedMessageCount(serviceObject.getExpectedResponse(),
+						getMessageList(filteredMessages));
+
+				// validates messages. will retry on error if expected number of messages not set
+				if (errorMessages.isEmpty()) {
+					printAllFilteredMessages(filteredMessages);
+					errorMessages.addAll((validateMessages(serviceObject, filteredMessages)));
+
+					// if expected fixed number of messages, at this point we have met that requirement
+					if (isExpectingMessageCount(serviceObject.getExpectedResponse()))
+						break;
+				}
+
+				// wait for matching messages instead of polling
+				long remainingMillis = TimeUnit.SECONDS.toMillis(maxRetrySeconds) - watch.time(TimeUnit.MILLISECONDS);
+				if (!errorMessages.isEmpty() && remainingMillis > 0)
+					awaitMessages(waiter, serviceObject, filteredMessages.size(), remainingMillis);
+			} finally {
+				MessageObject.outboundMessages.unregister(waiter);
 			}
 
 			passedTimeInSeconds = watch.time(TimeUnit.SECONDS);
@@ -94,6 +107,24 @@ public class MessageQueueHelper {
 		}
 	}
 	
+	/**
+	 * waits for matching messages. when expecting message count, waits for the
+	 * remaining messages
+	 * 
+	 * @param waiter
+	 * @param serviceObject
+	 * @param receivedCount
+	 * @param remainingMillis
+	 * @throws InterruptedException
+	 */
+	private static void awaitMessages(MessageWaiter waiter, ServiceObject serviceObject, int receivedCount,
+			long remainingMillis) throws InterruptedException {
+		int expectedCount = getExpectedMessageCount(serviceObject.getExpectedResponse());
+		int waitCount = expectedCount > receivedCount ? expectedCount - receivedCount : 1;
+
+		waiter.await(waitCount, remainingMillis);
+	}
+
 	public static void saveOutBoundValues(ServiceObject serviceObject, CopyOnWriteArrayList<MessageObject> filteredMessages,  List<String> errorMessages) {
 		if (filteredMessages.isEmpty() || !errorMessages.isEmpty() || serviceObject.getOutputParams().isEmpty())
 			return;
@@ -122,7 +153,7 @@ public class MessageQueueHelper {
 			// gets json value. if list, returns string separated by comma
 			String value = Helper.convertListToString(messages);
 
-			Config.putValue(key, value, false);
+			Config.putOutputValue(key, value, false);
 			TestLog.logPass("output parameter: " + key + " value: " + value);
 		}
 		
@@ -213,6 +244,19 @@ public class MessageQueueHelper {
 	 * @return
 	 */
 	public static boolean isExpectingMessageCount(String expectedResponse) {
+		if(getExpectedMessageCount(expectedResponse) != -1)
+			return true;
+		
+		return false;
+	}
+	
+	/**
+	 * expected message count
+	 * eg. EXPECTED_MESSAGE_COUNT:2
+	 * @param expectedResponse
+	 * @return -1 if not set
+	 */
+	public static int getExpectedMessageCount(String expectedResponse) {
 		int expectedMessageCount = -1;
 
 		// get a map of key values in request
@@ -222,10 +266,7 @@ public class MessageQueueHelper {
 		if (params.containsKey(DataHelper.EXPECTED_MESSAGE_COUNT)) {
 			expectedMessageCount = Helper.getIntFromString(params.get(DataHelper.EXPECTED_MESSAGE_COUNT), true);
 		}
-		if(expectedMessageCount != -1)
-			return true;
-		
-		return false;
+		return expectedMessageCount;
 	}
 
 	/**
@@ -267,32 +308,10 @@ public class MessageQueueHelper {
 		if (identifierList.isEmpty())
 			return filteredMessages;
 
-		for (Entry<MessageObject, Boolean> entry : MessageObject.outboundMessages.entrySet()) {
-			String receiveMessage = Optional.ofNullable(entry.getKey().getMessage()).orElse("");
-
-			boolean isMessageMatch = isIdentifierMatch(receiveMessage, identifierList);
-			if (entry.getValue().equals(true) && isMessageMatch) {
-
-				filteredMessages.add(entry.getKey());
-				MessageObject.outboundMessages.put(entry.getKey(), false);
-			}
-
-		}
-
+		// messages are claimed once
+		filteredMessages.addAll(MessageObject.outboundMessages.claimByResponseIdentifiers(identifierList));
 		return filteredMessages;
 	}
-	
-	private static boolean isIdentifierMatch(String receiveMessage, List<String> identifierList) {
-		// return if identifier is empty
-		if (identifierList.isEmpty())
-			return false;
-
-		for (String identifier : identifierList) {
-			if (!receiveMessage.contains(identifier))
-				return false;
-		}
-		return true;
-	}
 
 	/**
 	 * find message based on record id
@@ -307,18 +326,8 @@ public class MessageQueueHelper {
 		if (messageId.isEmpty())
 			return filteredMessages;
 
-		for (Entry<MessageObject, Boolean> entry : MessageObject.outboundMessages.entrySet()) {
-			String receivedMessageId = Optional.ofNullable(entry.getKey().getMessageId()).orElse("");
-			String receivedCorrelationId = Optional.ofNullable(entry.getKey().getCorrelationId()).orElse("");
-
-			boolean isMessageMatch = receivedMessageId.contains(messageId) || receivedCorrelationId.contains(messageId);
-			if (entry.getValue().equals(true) && isMessageMatch) {
-
-				filteredMessages.add(entry.getKey());
-				MessageObject.outboundMessages.put(entry.getKey(), false);
-			}
-		}
-
+		// messages are claimed once
+		filteredMessages.addAll(MessageObject.outboundMessages.claimByMessageId(messageId));
 		return filteredMessages;
 	}
 
@@ -362,6 +371,7 @@ public class MessageQueueHelper {
 			ServiceBusInterface.getOutboundMessages();
 			break;
 		case TEST:
+			TestBrokerInterface.getOutboundMessages();
 			break;
 		default:
 		}
@@ -373,7 +383,7 @@ public class MessageQueueHelper {
 	 */
 	public static void printAllMessages() {
 		TestLog.ConsoleLog("Printing All received messages");
-		for (Entry<MessageObject, Boolean> entry : MessageObject.outboundMessages.entrySet()) {
+		for (Entry<MessageObject, Boolean> entry : MessageObject.outboundMessages.getMessages().entrySet()) {
 			String messageId = entry.getKey().getMessageId();
 			Boolean messageAvailable = entry.getValue();
 
@@ -0,0 +1,281 @@
+package core.apiCore.helpers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import core.helpers.Helper;
+import core.support.configReader.Config;
+import core.support.logger.TestLog;
+import core.support.objects.TestObject;
+
+/**
+ * compiled form of a string with placeholders. eg. "id: <@userId>, time:
+ * <@_TIME_ISO_17>"
+ *
+ * the string is split once into literals And typed placeholders. templates are
+ * cached per source string And tag pattern, And rendered in one pass
+ */
+public class ParameterTemplate {
+
+	// max total characters of cached source strings
+	private static final long TEMPLATE_CACHE_MAX_CHARS = 16 * 1024 * 1024;
+
+	// key: tag pattern. eg. <@(.+?)>
+	private static final Map<String, Pattern> tagPatterns = new ConcurrentHashMap<String, Pattern>();
+
+	// key: tag pattern + source string
+	private static final Cache<TemplateKey, ParameterTemplate> templates = CacheBuilder.newBuilder()
+			.maximumWeight(TEMPLATE_CACHE_MAX_CHARS)
+			.weigher((TemplateKey key, ParameterTemplate template) -> key.source.length()).build();
+
+	// reused per thread for rendering
+	private static final ThreadLocal<StringBuilder> builder = ThreadLocal.withInitial(StringBuilder::new);
+	private static final int BUILDER_MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+	enum PARAMETER_TYPE {
+		TIME_MS, TIME_S, TIME_STRING, TIME_ISO, TIME, RANDUUID, UUID_STATIC, RAND, INCREMENT_FROM, XML, CONFIG
+	}
+
+	private final String source;
+	private final String[] literals; // literals[i] precedes placeholders[i]. last literal follows the last placeholder
+	private final Placeholder[] placeholders;
+	private final Placeholder[] distinctPlaceholders; // each parameter is evaluated once per render
+
+	private ParameterTemplate(String source, List<String> literals, List<Placeholder> placeholders,
+			List<Placeholder> distinctPlaceholders) {
+		this.source = source;
+		this.literals = literals.toArray(new String[literals.size()]);
+		this.placeholders = placeholders.toArray(new Placeholder[placeholders.size()]);
+		this.distinctPlaceholders = distinctPlaceholders.toArray(new Placeholder[distinctPlaceholders.size()]);
+	}
+
+	/**
+	 * gets compiled template for source string
+	 *
+	 * @param source
+	 * @param tagPattern regular expression. group 1 is the parameter. eg.
+	 *                   <@(.+?)>
+	 * @return
+	 */
+	public static ParameterTemplate getTemplate(String source, String tagPattern) {
+		TemplateKey key = new TemplateKey(source, tagPattern);
+		ParameterTemplate template = templates.getIfPresent(key);
+		if (template == null) {
+			template = compile(source, tagPattern);
+			templates.put(key, template);
+		}
+		return template;
+	}
+
+	/**
+	 * replaces placeholders in source with values
+	 *
+	 * @param source
+	 * @param tagPattern
+	 * @param openingTag
+	 * @return
+	 */
+	public static String replaceParameters(String source, String tagPattern, String openingTag) {
+		// no placeholders
+		if (source.indexOf(openingTag) == -1)
+			return source;
+		return getTemplate(source, tagPattern).render();
+	}
+
+	private static ParameterTemplate compile(String source, String tagPattern) {
+		Pattern pattern = tagPatterns.get(tagPattern);
+		if (pattern == null) {
+			pattern = Pattern.compile(tagPattern);
+			tagPatterns.put(tagPattern, pattern);
+		}
+
+		List<String> literals = new ArrayList<String>();
+		List<Placeholder> placeholders = new ArrayList<Placeholder>();
+		Map<String, Placeholder> distinct = new LinkedHashMap<String, Placeholder>();
+
+		Matcher matcher = pattern.matcher(source);
+		int position = 0;
+		while (matcher.find()) {
+			literals.add(source.substring(position, matcher.start()));
+
+			String parameter = matcher.group(1);
+			Placeholder placeholder = distinct.get(parameter);
+			if (placeholder == null) {
+				placeholder = new Placeholder(parameter, matcher.group(), distinct.size());
+				distinct.put(parameter, placeholder);
+			}
+			placeholders.add(placeholder);
+			position = matcher.end();
+		}
+		literals.add(source.substring(position));
+
+		return new ParameterTemplate(source, literals, placeholders, new ArrayList<Placeholder>(distinct.values()));
+	}
+
+	/**
+	 * evaluates each parameter once, then renders the source in one pass
+	 * parameters without value are kept as is
+	 *
+	 * @return
+	 */
+	public String render() {
+		if (placeholders.length == 0)
+			return source;
+
+		// evaluate values before rendering. time values can render nested templates
+		String[] values = new String[distinctPlaceholders.length];
+		for (Placeholder placeholder : distinctPlaceholders) {
+			Object value = placeholder.getValue(source);
+			if (DataHelper.isObjectEmpty(value))
+				TestLog.logWarning("parameter value not found: " + placeholder.parameter);
+			else
+				values[placeholder.index] = Matcher.quoteReplacement(value.toString());
+		}
+
+		StringBuilder result = builder.get();
+		result.setLength(0);
+		for (int i = 0; i < placeholders.length; i++) {
+			result.append(literals[i]);
+			String value = values[placeholders[i].index];
+			result.append(value == null ? placeholders[i].tag : value);
+		}
+		result.append(literals[literals.length - 1]);
+		String rendered = result.toString();
+
+		// release large buffers
+		if (result.capacity() > BUILDER_MAX_RETAINED_CAPACITY)
+			builder.remove();
+		return rendered;
+	}
+
+	/**
+	 * clears render buffer of the current thread
+	 */
+	public static void clear() {
+		builder.remove();
+	}
+
+	/**
+	 * typed placeholder. eg. <@_TIME_ISO_17+30h>, <@_RAND16>, <@userId>
+	 */
+	private static class Placeholder {
+		private final String parameter;
+		private final String tag; // full placeholder text including opening And closing tags
+		private final int index;
+		private final PARAMETER_TYPE type;
+
+		private String configKey;
+		private String xmlTag;
+		private int xmlIndex = 0;
+
+		Placeholder(String parameter, String tag, int index) {
+			this.parameter = parameter;
+			this.tag = tag;
+			this.index = index;
+			this.type = getType(parameter);
+
+			if (type.equals(PARAMETER_TYPE.CONFIG))
+				configKey = parameter.replace("@", "");
+			else if (type.equals(PARAMETER_TYPE.XML)) {
+				// syntax:e.g. <@_XML:ID:1> will be replaced by 2
+				String[] valueArray = parameter.split(":");
+				xmlTag = valueArray[1];
+				if (valueArray.length == 3) // if has index value
+					xmlIndex = Integer.valueOf(valueArray[2]);
+			}
+		}
+
+		private static PARAMETER_TYPE getType(String parameter) {
+			if (parameter.contains("_TIME_MS_"))
+				return PARAMETER_TYPE.TIME_MS;
+			if (parameter.contains("_TIME_S_"))
+				return PARAMETER_TYPE.TIME_S;
+			if (parameter.contains("_TIME_STRING_"))
+				return PARAMETER_TYPE.TIME_STRING;
+			if (parameter.contains("_TIME_ISO_"))
+				return PARAMETER_TYPE.TIME_ISO;
+			if (parameter.contains("_TIME"))
+				return PARAMETER_TYPE.TIME;
+			if (parameter.contains("_RANDUUID"))
+				return PARAMETER_TYPE.RANDUUID;
+			if (parameter.contains("_UUID_STATIC"))
+				return PARAMETER_TYPE.UUID_STATIC;
+			if (parameter.contains("_RAND"))
+				return PARAMETER_TYPE.RAND;
+			if (parameter.contains("_INCREMENT_FROM_"))
+				return PARAMETER_TYPE.INCREMENT_FROM;
+			if (parameter.contains("_XML"))
+				return PARAMETER_TYPE.XML;
+			return PARAMETER_TYPE.CONFIG;
+		}
+
+		private Object getValue(String source) {
+			String newTime;
+			switch (type) {
+			case TIME_MS:
+				newTime = DataHelper.getTime(parameter, Config.getValue(TestObject.START_TIME_STRING));
+				return DataHelper.getTimeSubstring(parameter,
+						String.valueOf(Instant.parse(newTime).toEpochMilli()));
+			case TIME_S:
+				newTime = DataHelper.getTime(parameter, Config.getValue(TestObject.START_TIME_STRING));
+				return DataHelper.getTimeSubstring(parameter,
+						String.valueOf(Instant.parse(newTime).getEpochSecond()));
+			case TIME_STRING:
+				newTime = DataHelper.getTime(parameter, Config.getValue(TestObject.START_TIME_STRING));
+				return DataHelper.getTimeSubstring(parameter,
+						Helper.date.getTime(newTime, "yyyyMMddHHmmssSSS", null));
+			case TIME_ISO:
+			case TIME:
+				newTime = DataHelper.getTime(parameter, Config.getValue(TestObject.START_TIME_STRING));
+				return DataHelper.getTimeSubstring(parameter, newTime);
+			case RANDUUID:
+				return Helper.generateUUID();
+			case UUID_STATIC:
+				return Config.getValue(TestObject.UUID_STATIC_STRING);
+			case RAND:
+				int length = Helper.getIntFromString(parameter);
+				return Config.getValue(TestObject.RANDOM_STRING).substring(0, length);
+			case INCREMENT_FROM:
+				return DataHelper.getIncrementalValue(parameter);
+			case XML:
+				return XmlHelper.getXmlTagValue(source, xmlTag, xmlIndex + 1);
+			default:
+				return Config.getObjectValue(configKey);
+			}
+		}
+	}
+
+	private static class TemplateKey {
+		private final String source;
+		private final String tagPattern;
+		private final int hash;
+
+		TemplateKey(String source, String tagPattern) {
+			this.source = source;
+			this.tagPattern = tagPattern;
+			this.hash = 31 * source.hashCode() + tagPattern.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof TemplateKey))
+				return false;
+			TemplateKey key = (TemplateKey) object;
+			return hash == key.hash && tagPattern.equals(key.tagPattern) && source.equals(key.source);
+		}
+	}
+}
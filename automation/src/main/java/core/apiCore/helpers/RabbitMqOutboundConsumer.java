@@ -0,0 +1,135 @@
+package core.apiCore.helpers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+
+import core.support.objects.MessageObject;
+import core.support.objects.MessageObject.messageType;
+
+/**
+ * background rabbitMq consumers for outbound queues
+ *
+ * a consumer is started on first use per queue And runs until the suite
+ * finishes. messages are pushed by the broker, up to prefetch unacknowledged
+ * messages at a time, And added to MessageObject.outboundMessages as they
+ * arrive, waking up tests waiting for them. each consumer has its own channel
+ *
+ * a consumer is removed when its channel shuts down or the broker cancels it,
+ * eg. queue deleted, And started again on next use
+ *
+ * config:
+ * rabbitMQ.consumer.prefetch: max unacknowledged messages pushed to a consumer. default: 250
+ */
+public class RabbitMqOutboundConsumer {
+
+	public static final String RABBIT_MQ_CONSUMER_PREFETCH = "rabbitMQ.consumer.prefetch";
+
+	public static final int DEFAULT_PREFETCH = 250;
+
+	// key: queue name
+	private static final Map<String, RabbitMqOutboundConsumer> consumers = new ConcurrentHashMap<String, RabbitMqOutboundConsumer>();
+
+	private final Channel channel;
+	private final String consumerTag;
+
+	/**
+	 * starts consumer for queue, if not started
+	 *
+	 * @param connection
+	 * @param queueName
+	 * @param prefetch
+	 */
+	public static void start(Connection connection, String queueName, int prefetch) {
+		consumers.computeIfAbsent(queueName, value -> {
+			try {
+				return new RabbitMqOutboundConsumer(connection, queueName, prefetch);
+			} catch (IOException e) {
+				throw new RuntimeException("Could not consume queue: " + queueName, e);
+			}
+		});
+	}
+
+	/**
+	 * returns true if consumer for queue is running
+	 *
+	 * @param queueName
+	 * @return
+	 */
+	public static boolean isStarted(String queueName) {
+		RabbitMqOutboundConsumer consumer = consumers.get(queueName);
+		if (consumer == null)
+			return false;
+		if (consumer.channel.isOpen())
+			return true;
+		consumers.remove(queueName, consumer);
+		return false;
+	}
+
+	/**
+	 * cancels all consumers And closes their channels
+	 */
+	public static void shutdown() {
+		for (RabbitMqOutboundConsumer consumer : consumers.values())
+			consumer.stop();
+		consumers.clear();
+	}
+
+	private RabbitMqOutboundConsumer(Connection connection, String queueName, int prefetch) throws IOException {
+		channel = connection.createChannel();
+		channel.addShutdownListener(cause -> consumers.remove(queueName, this));
+		channel.basicQos(prefetch);
+		consumerTag = channel.basicConsume(queueName, false, new DefaultConsumer(channel) {
+			@Override
+			public void handleDelivery(String tag, Envelope envelope, BasicProperties properties, byte[] body)
+					throws IOException {
+				consume(properties, body);
+				getChannel().basicAck(envelope.getDeliveryTag(), false);
+			}
+
+			// cancelled by the broker. channel is closed, consumer is started again on next use
+			@Override
+			public void handleCancel(String tag) {
+				consumers.remove(queueName, RabbitMqOutboundConsumer.this);
+				try {
+					if (getChannel().isOpen())
+						getChannel().close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		});
+	}
+
+	/**
+	 * adds delivered message to outbound messages. runs on the connection
+	 * consumer thread without test context
+	 *
+	 * @param properties
+	 * @param body
+	 */
+	private static void consume(BasicProperties properties, byte[] body) {
+		MessageObject message = new MessageObject().withMessageType(messageType.RABBITMQ)
+				.withMessageId(properties.getMessageId()).withCorrelationId(properties.getCorrelationId())
+				.withMessage(new String(body, StandardCharsets.UTF_8));
+		MessageObject.outboundMessages.add(message);
+	}
+
+	private void stop() {
+		try {
+			if (channel.isOpen()) {
+				channel.basicCancel(consumerTag);
+				channel.close();
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
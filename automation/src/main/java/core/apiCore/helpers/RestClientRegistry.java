@@ -0,0 +1,192 @@
+package core.apiCore.helpers;
+
+import static io.restassured.RestAssured.given;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+
+import core.apiCore.ServiceManager;
+import core.apiCore.interfaces.RestApiInterface;
+import core.helpers.UtilityHelper;
+import core.support.configReader.Config;
+import core.support.objects.TestObject;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.config.SSLConfig;
+import io.restassured.specification.ProxySpecification;
+import io.restassured.specification.RequestSpecification;
+
+/**
+ * registry of pooled connections for rest assured requests
+ *
+ * connection pools are keyed by target (protocol, host, port), timeout, proxy
+ * And https validation settings. each pool keeps its connections alive, so
+ * connections And tls sessions are reused across requests to the same target.
+ * each request gets a new http client on the shared pool, with its own cookie
+ * store And credentials. requests are configured per request, global rest
+ * assured settings are not modified, so parallel tests do not affect each other
+ *
+ * config:
+ * api.connection.maxTotal: max pooled connections per client. default: 200
+ * api.connection.maxPerRoute: max pooled connections per route. default: 50
+ */
+@SuppressWarnings("deprecation")
+public class RestClientRegistry {
+
+	public static final String API_CONNECTION_MAX_TOTAL = "api.connection.maxTotal";
+	public static final String API_CONNECTION_MAX_PER_ROUTE = "api.connection.maxPerRoute";
+
+	private static final int DEFAULT_TIMEOUT_SECONDS = 60;
+	private static final int DEFAULT_MAX_TOTAL = 200;
+	private static final int DEFAULT_MAX_PER_ROUTE = 50;
+
+	// key: target, timeout, proxy, https validation
+	private static final Map<String, RestClient> clients = new ConcurrentHashMap<String, RestClient>();
+
+	/**
+	 * creates request for url, using the pooled client for the url target And
+	 * current config settings. base uri, port And base path are set on the request
+	 *
+	 * @param url
+	 * @return
+	 */
+	public static RequestSpecification newRequest(URL url) {
+		int timeout = Config.getIntValue(ServiceManager.SERVICE_RESPONSE_TIMEOUT_SECONDS);
+		int timeoutSeconds = timeout == -1 ? DEFAULT_TIMEOUT_SECONDS : timeout; // connect timeout defaults to 60 seconds
+		boolean isRelaxedHttps = Config.getBooleanValue(RestApiInterface.API_USE_RELAXED_HTTPS_VALIDATION);
+		ProxySpecification proxy = getProxy(url);
+
+		String target = url.getProtocol() + "://" + url.getHost() + ":" + url.getPort();
+		String key = target + "|" + timeoutSeconds + "|" + isRelaxedHttps + "|"
+				+ (proxy == null ? "" : proxy.getScheme() + "://" + proxy.getHost() + ":" + proxy.getPort());
+
+		RestClient client = clients.computeIfAbsent(key,
+				value -> new RestClient(timeoutSeconds, isRelaxedHttps, proxy));
+
+		RequestSpecification request = given().config(client.config);
+		if (client.proxy != null)
+			request = request.proxy(client.proxy);
+
+		request.baseUri(url.getProtocol() + "://" + url.getHost());
+		request.port(url.getPort());
+		request.basePath(url.getPath());
+		return request;
+	}
+
+	/**
+	 * closes all clients
+	 */
+	public static void shutdown() {
+		for (RestClient client : clients.values())
+			client.connectionManager.shutdown();
+		clients.clear();
+	}
+
+	/**
+	 * proxy from config if proxy is required for url host
+	 *
+	 * @param url
+	 * @return null if no proxy
+	 */
+	private static ProxySpecification getProxy(URL url) {
+		String host = Config.getValue(TestObject.PROXY_HOST);
+		int port = Config.getIntValue(TestObject.PROXY_PORT);
+		if (host.isEmpty() || port == -1)
+			return null;
+
+		// detect if proxy is required or not
+		if (!UtilityHelper.isProxyRequired(url))
+			return null;
+
+		String protocol = Config.getValue(TestObject.PROXY_PROTOCOL);
+		ProxySpecification proxy = ProxySpecification.host(host).withPort(port);
+		if (protocol.equals("http") || protocol.equals("https"))
+			proxy = proxy.withScheme(protocol);
+		return proxy;
+	}
+
+	/**
+	 * rest assured config with a pooled connection manager. a new http client is
+	 * created per request on the shared pool
+	 */
+	private static class RestClient {
+		private final RestAssuredConfig config;
+		private final ProxySpecification proxy;
+		private final PoolingClientConnectionManager connectionManager;
+
+		RestClient(int timeoutSeconds, boolean isRelaxedHttps, ProxySpecification proxy) {
+			this.proxy = proxy;
+
+			int maxTotal = Config.getIntValue(API_CONNECTION_MAX_TOTAL);
+			int maxPerRoute = Config.getIntValue(API_CONNECTION_MAX_PER_ROUTE);
+
+			connectionManager = new PoolingClientConnectionManager();
+			connectionManager.setMaxTotal(maxTotal > 0 ? maxTotal : DEFAULT_MAX_TOTAL);
+			connectionManager.setDefaultMaxPerRoute(maxPerRoute > 0 ? maxPerRoute : DEFAULT_MAX_PER_ROUTE);
+
+			int timeoutMillis = timeoutSeconds * 1000;
+			ClientConnectionManager sharedConnectionManager = new SharedConnectionManager(connectionManager);
+			HttpClientConfig httpClientConfig = HttpClientConfig.httpClientConfig()
+					.httpClientFactory(() -> new DefaultHttpClient(sharedConnectionManager))
+					.setParam("http.connection.timeout", timeoutMillis).setParam("http.socket.timeout", timeoutMillis)
+					.setParam("http.connection-manager.timeout", (long) timeoutMillis);
+
+			RestAssuredConfig config = RestAssuredConfig.config().httpClient(httpClientConfig);
+			if (isRelaxedHttps)
+				config = config.sslConfig(SSLConfig.sslConfig().relaxedHTTPSValidation());
+			this.config = config;
+		}
+	}
+
+	/**
+	 * connection manager shared by the http clients of a pool. clients closing
+	 * do not shut down the pool, it is shut down with the registry
+	 */
+	private static class SharedConnectionManager implements ClientConnectionManager {
+		private final ClientConnectionManager connectionManager;
+
+		SharedConnectionManager(ClientConnectionManager connectionManager) {
+			this.connectionManager = connectionManager;
+		}
+
+		@Override
+		public SchemeRegistry getSchemeRegistry() {
+			return connectionManager.getSchemeRegistry();
+		}
+
+		@Override
+		public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+			return connectionManager.requestConnection(route, state);
+		}
+
+		@Override
+		public void releaseConnection(ManagedClientConnection connection, long validDuration, TimeUnit timeUnit) {
+			connectionManager.releaseConnection(connection, validDuration, timeUnit);
+		}
+
+		@Override
+		public void closeIdleConnections(long idleTime, TimeUnit timeUnit) {
+			connectionManager.closeIdleConnections(idleTime, timeUnit);
+		}
+
+		@Override
+		public void closeExpiredConnections() {
+			connectionManager.closeExpiredConnections();
+		}
+
+		@Override
+		public void shutdown() {
+			// pool is shared, see RestClientRegistry.shutdown
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package core.apiCore.helpers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.microsoft.azure.servicebus.ExceptionPhase;
+import com.microsoft.azure.servicebus.IMessage;
+import com.microsoft.azure.servicebus.IMessageHandler;
+import com.microsoft.azure.servicebus.IMessageEntityClient;
+import com.microsoft.azure.servicebus.MessageHandlerOptions;
+import com.microsoft.azure.servicebus.QueueClient;
+import com.microsoft.azure.servicebus.ReceiveMode;
+import com.microsoft.azure.servicebus.SubscriptionClient;
+import com.microsoft.azure.servicebus.TopicClient;
+import com.microsoft.azure.servicebus.primitives.ConnectionStringBuilder;
+
+import core.support.objects.MessageObject;
+import core.support.objects.MessageObject.messageType;
+
+/**
+ * registry of shared service bus clients
+ *
+ * clients are keyed by connection string And entity path. a client is created
+ * on first use And shared by all tests until the suite finishes, so amqp links
+ * are reused across messages. subscriptions have a single message handler,
+ * registered when the client is created, adding received messages to
+ * MessageObject.outboundMessages
+ *
+ * config:
+ * servicebus.handler.concurrency: concurrent calls of the subscription message handler. default: 1
+ * servicebus.prefetch: messages prefetched by subscription clients. default: 100
+ */
+public class ServiceBusClientRegistry {
+
+	public static final String SERVICEBUS_HANDLER_CONCURRENCY = "servicebus.handler.concurrency";
+	public static final String SERVICEBUS_PREFETCH = "servicebus.prefetch";
+
+	public static final int DEFAULT_HANDLER_CONCURRENCY = 1;
+	public static final int DEFAULT_PREFETCH = 100;
+	private static final Duration AUTO_RENEW_DURATION = Duration.ofMinutes(1);
+
+	// key: connection string, entity path
+	private static final Map<String, QueueClient> queueClients = new ConcurrentHashMap<String, QueueClient>();
+	private static final Map<String, TopicClient> topicClients = new ConcurrentHashMap<String, TopicClient>();
+	private static final Map<String, SubscriptionClient> subscriptionClients = new ConcurrentHashMap<String, SubscriptionClient>();
+
+	/**
+	 * gets queue client. client is created on first use
+	 *
+	 * @param connectionString
+	 * @param queue
+	 * @return
+	 */
+	public static QueueClient getQueueClient(String connectionString, String queue) {
+		return queueClients.computeIfAbsent(connectionString + "|" + queue, value -> {
+			try {
+				return new QueueClient(new ConnectionStringBuilder(connectionString, queue), ReceiveMode.PEEKLOCK);
+			} catch (Exception e) {
+				throw new RuntimeException("Could not connect to queue: " + queue, e);
+			}
+		});
+	}
+
+	/**
+	 * gets topic client. client is created on first use
+	 *
+	 * @param connectionString
+	 * @param topic
+	 * @return
+	 */
+	public static TopicClient getTopicClient(String connectionString, String topic) {
+		return topicClients.computeIfAbsent(connectionString + "|" + topic, value -> {
+			try {
+				return new TopicClient(new ConnectionStringBuilder(connectionString, topic));
+			} catch (Exception e) {
+				throw new RuntimeException("Could not connect to topic: " + topic, e);
+			}
+		});
+	}
+
+	/**
+	 * starts receiving messages from subscription, if not started
+	 *
+	 * @param connectionString
+	 * @param entityPath       topic/subscriptions/subscription
+	 * @param concurrency
+	 * @param prefetch
+	 */
+	public static void startSubscription(String connectionString, String entityPath, int concurrency, int prefetch) {
+		subscriptionClients.computeIfAbsent(connectionString + "|" + entityPath, value -> {
+			try {
+				SubscriptionClient client = new SubscriptionClient(
+						new ConnectionStringBuilder(connectionString, entityPath), ReceiveMode.PEEKLOCK);
+				client.setPrefetchCount(prefetch);
+				registerMessageHandler(client, concurrency);
+				return client;
+			} catch (Exception e) {
+				throw new RuntimeException("Could not subscribe to: " + entityPath, e);
+			}
+		});
+	}
+
+	/**
+	 * closes all clients
+	 */
+	public static void shutdown() {
+		close(subscriptionClients);
+		close(queueClients);
+		close(topicClients);
+	}
+
+	private static void close(Map<String, ? extends IMessageEntityClient> clients) {
+		for (IMessageEntityClient client : clients.values()) {
+			try {
+				client.close();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+		clients.clear();
+	}
+
+	/**
+	 * registers handler adding received messages to outbound messages. handler
+	 * runs on client threads without test context
+	 *
+	 * @param receiveClient
+	 * @param concurrency
+	 * @throws Exception
+	 */
+	@SuppressWarnings("deprecation")
+	private static void registerMessageHandler(SubscriptionClient receiveClient, int concurrency) throws Exception {
+
+		IMessageHandler messageHandler = new IMessageHandler() {
+			// callback invoked when the message handler loop has obtained a message
+			public CompletableFuture<Void> onMessageAsync(IMessage message) {
+
+				MessageObject messageObject = new MessageObject().withMessageType(messageType.SERVICEBUS)
+						.withMessageId(message.getMessageId()).withCorrelationId(message.getCorrelationId())
+						.withMessage(message.getMessageBody().getValueData().toString()).withLabel(message.getLabel());
+				MessageObject.outboundMessages.add(messageObject);
+
+				return receiveClient.completeAsync(message.getLockToken());
+			}
+
+			@Override
+			public void notifyException(Throwable throwable, ExceptionPhase exceptionPhase) {
+				System.out.printf(exceptionPhase + "-" + throwable.getMessage());
+			}
+		};
+
+		// concurrent calls, messages are completed by the handler, auto-renew duration
+		receiveClient.registerMessageHandler(messageHandler,
+				new MessageHandlerOptions(concurrency, false, AUTO_RENEW_DURATION));
+	}
+}
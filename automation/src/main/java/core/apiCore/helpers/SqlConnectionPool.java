@@ -0,0 +1,297 @@
+package core.apiCore.helpers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import core.apiCore.helpers.ConnectionHelper.SshTunnel;
+import core.support.logger.TestLog;
+import core.support.objects.DatabaseObject;
+
+/**
+ * bounded jdbc connection pools, one per configured database
+ *
+ * a pool is created on first use And shared by all tests. each sql row borrows
+ * a connection And returns it when done, so parallel rows run on separate
+ * connections. connections are validated when borrowed. prepared statements
+ * are cached per connection
+ *
+ * streaming statements are read only And forward only, And fetch rows in
+ * batches of fetch size. they run without auto commit, so drivers fetch rows
+ * through a cursor (eg. postgresql). the transaction is committed before
+ * each query run, And when the connection is returned
+ *
+ * pools connect through the shared ssh tunnel, if set in config. the tunnel is
+ * reconnected before new connections are opened, if dropped
+ *
+ * config (per database, eg. db.1.poolSize):
+ * db.poolSize: max connections. default: 10
+ * db.statementCacheSize: max cached prepared statements per connection. default: 50
+ * db.streaming: stream result sets. default: false
+ * db.fetchSize: rows fetched per batch when streaming. default: 1000
+ */
+public class SqlConnectionPool {
+
+	public static final int DEFAULT_POOL_SIZE = 10;
+	public static final int DEFAULT_STATEMENT_CACHE_SIZE = 50;
+	public static final int DEFAULT_FETCH_SIZE = 1000;
+
+	private static final int BORROW_TIMEOUT_SECONDS = 60;
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+	// key: connection string, username
+	private static final Map<String, SqlConnectionPool> pools = new ConcurrentHashMap<String, SqlConnectionPool>();
+
+	private final String connectionString;
+	private final String username;
+	private final String password;
+	private final int statementCacheSize;
+	private final Semaphore permits;
+
+	// null if not connected through ssh
+	private final SshTunnel tunnel;
+
+	// most recently returned first
+	private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<PooledConnection>();
+
+	/**
+	 * borrows connection from the pool of the database. pool is created on first
+	 * use, outside the pool map, since it may open an ssh tunnel. if another
+	 * thread publishes a pool first, the new pool is closed. connection is
+	 * returned to the pool when closed
+	 *
+	 * @param database
+	 * @return
+	 * @throws Exception
+	 */
+	public static PooledConnection borrow(DatabaseObject database) throws Exception {
+		String key = database.getUrl() + "/" + database.getDatabaseName() + "|" + database.getUsername();
+
+		SqlConnectionPool pool = pools.get(key);
+		if (pool == null) {
+			SqlConnectionPool created;
+			try {
+				created = new SqlConnectionPool(database);
+			} catch (ClassNotFoundException e) {
+				throw new RuntimeException("sql driver not found: " + database.getDriver(), e);
+			}
+
+			pool = pools.putIfAbsent(key, created);
+			if (pool == null)
+				pool = created;
+			else
+				created.close();
+		}
+		return pool.borrow();
+	}
+
+	/**
+	 * closes idle connections of all pools And releases ssh tunnels
+	 */
+	public static void shutdown() {
+		for (SqlConnectionPool pool : pools.values())
+			pool.close();
+		pools.clear();
+	}
+
+	private SqlConnectionPool(DatabaseObject database) throws ClassNotFoundException {
+		// Register JDBC driver
+		Class.forName(database.getDriver());
+
+		// connect through ssh if set in api config. url may reference the assigned local port
+		this.tunnel = ConnectionHelper.sshConnect();
+		String url = tunnel == null ? database.getUrl() : tunnel.replaceLocalPort(database.getUrl());
+
+		this.connectionString = url + "/" + database.getDatabaseName();
+		this.username = database.getUsername();
+		this.password = database.getPassword();
+		this.statementCacheSize = Math.max(database.getStatementCacheSize(), 1);
+		this.permits = new Semaphore(database.getPoolSize(), true);
+
+		TestLog.logPass("db connection: " + connectionString);
+		TestLog.logPass("db username: " + username);
+		TestLog.logPass("db pool size: " + database.getPoolSize());
+	}
+
+	/**
+	 * borrows idle connection, or opens new connection if none are idle. waits
+	 * if all connections are borrowed
+	 *
+	 * @return
+	 * @throws Exception
+	 */
+	private PooledConnection borrow() throws Exception {
+		if (!permits.tryAcquire(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+			throw new SQLException(
+					"no sql connection available after " + BORROW_TIMEOUT_SECONDS + " seconds: " + connectionString);
+
+		try {
+			PooledConnection connection;
+			while ((connection = idle.pollFirst()) != null) {
+				if (connection.connection.isValid(VALIDATION_TIMEOUT_SECONDS))
+					return connection;
+				connection.closeConnection();
+			}
+
+			if (tunnel != null)
+				tunnel.ensureConnected();
+			return new PooledConnection(this, DriverManager.getConnection(connectionString, username, password));
+		} catch (Exception e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * closes idle connections And releases ssh tunnel
+	 */
+	private void close() {
+		PooledConnection connection;
+		while ((connection = idle.pollFirst()) != null)
+			connection.closeConnection();
+		if (tunnel != null)
+			tunnel.release();
+	}
+
+	private void release(PooledConnection connection, boolean isBroken) {
+		if (!isBroken && pools.containsValue(this))
+			idle.offerFirst(connection);
+		else
+			connection.closeConnection();
+		permits.release();
+	}
+
+	/**
+	 * borrowed connection with prepared statement cache. close returns the
+	 * connection to the pool
+	 */
+	public static class PooledConnection implements AutoCloseable {
+		private final SqlConnectionPool pool;
+		private final Connection connection;
+		private final Map<String, PreparedStatement> statements;
+
+		private PooledConnection(SqlConnectionPool pool, Connection connection) {
+			this.pool = pool;
+			this.connection = connection;
+
+			// least recently used statements are closed when cache is full
+			this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+					if (size() <= pool.statementCacheSize)
+						return false;
+					closeQuietly(eldest.getValue());
+					return true;
+				}
+			};
+		}
+
+		public Connection getConnection() {
+			return connection;
+		}
+
+		/**
+		 * gets cached prepared statement for sql, or prepares new statement.
+		 * parameters of cached statements are cleared
+		 *
+		 * @param sql
+		 * @param isStreaming read only, forward only statement
+		 * @param fetchSize   rows fetched per batch, if streaming
+		 * @return
+		 * @throws SQLException
+		 */
+		public PreparedStatement prepareStatement(String sql, boolean isStreaming, int fetchSize)
+				throws SQLException {
+			String key = (isStreaming ? "streaming|" : "scroll|") + sql;
+
+			// drivers fetch forward only rows in batches within a transaction only
+			if (isStreaming && connection.getAutoCommit())
+				connection.setAutoCommit(false);
+
+			PreparedStatement statement = statements.get(key);
+			if (statement != null && !statement.isClosed()) {
+				statement.clearParameters();
+				return statement;
+			}
+
+			if (isStreaming) {
+				statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+				statement.setFetchSize(fetchSize);
+			} else
+				statement = connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE,
+						ResultSet.CONCUR_UPDATABLE);
+			statements.put(key, statement);
+			return statement;
+		}
+
+		/**
+		 * commits streaming transaction, if open. re-run statements Then see rows
+		 * committed since, And the cursor of the previous run is released
+		 * 
+		 * @throws SQLException
+		 */
+		public void commit() throws SQLException {
+			if (!connection.getAutoCommit())
+				connection.commit();
+		}
+
+		/**
+		 * closes open result sets, commits streaming transaction And returns
+		 * connection to the pool
+		 */
+		@Override
+		public void close() {
+			for (PreparedStatement statement : statements.values()) {
+				try {
+					ResultSet resultSet = statement.getResultSet();
+					if (resultSet != null)
+						resultSet.close();
+				} catch (SQLException e) {
+					// statement closed
+					closeQuietly(statement);
+				}
+			}
+
+			boolean isBroken = false;
+			try {
+				commit();
+				if (!connection.getAutoCommit())
+					connection.setAutoCommit(true);
+			} catch (SQLException e) {
+				e.printStackTrace();
+				isBroken = true;
+			}
+			pool.release(this, isBroken);
+		}
+
+		private void closeConnection() {
+			for (PreparedStatement statement : statements.values())
+				closeQuietly(statement);
+			statements.clear();
+			try {
+				connection.close();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+
+		private static void closeQuietly(PreparedStatement statement) {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
@@ -65,8 +65,6 @@ public class SqlHelper {
 
 		List<KeyValue> keywords = DataHelper.getValidationMap(keyValue);
 		for (KeyValue keyword : keywords) {
-			String key = (String) keyword.value;
-			key = key.replace("$", "").replace("<", "").replace(">", "").trim();
 			String value = "";
 
 			// eg. NAME:1:<$name> : if row available, get value of column at row
@@ -77,15 +75,78 @@ public class SqlHelper {
 				resSet.absolute(Integer.valueOf(keyword.position));
 				value = resSet.getString(keyword.key);
 			}
+			saveSqlValue(keyword, value);
+		}
+		KeyValue.printKeyValue(keywords, "saving value");
+	}
 
-			if (!keyword.position.isEmpty()) {
-				value = value.split(",")[Integer.valueOf(keyword.position) - 1];
-			}
-			Config.putValue(key, value, false);
+	/**
+	 * gets output parameter keywords for results read in one pass. random row
+	 * is not supported, row count is not known before rows are read
+	 * 
+	 * @param keyValue
+	 * @return
+	 */
+	public static List<KeyValue> getSqlOutputKeywords(String keyValue) {
+		if (keyValue.isEmpty())
+			return new ArrayList<KeyValue>();
+
+		if (keyValue.contains("<@RAND_DatabaseMaxRows>"))
+			Helper.assertFalse("<@RAND_DatabaseMaxRows> is not supported for streamed results. set db.streaming to false");
+
+		// replace parameters for outputParam
+		keyValue = DataHelper.replaceParameters(keyValue);
+		return DataHelper.getValidationMap(keyValue);
+	}
+
+	/**
+	 * requests values of output parameter keywords from result
+	 * 
+	 * @param result
+	 * @param keywords
+	 */
+	public static void requestSqlKeyValues(SqlResult result, List<KeyValue> keywords) {
+		for (KeyValue keyword : keywords) {
+			if (keyword.position.isEmpty())
+				result.withAllValues(keyword.key);
+			else
+				result.withValue(keyword.key, Integer.valueOf(keyword.position));
+		}
+	}
+
+	/**
+	 * map key value to config from result read in one pass
+	 * eg.features.features.id:1:<$id>
+	 * 
+	 * @param result
+	 * @param keywords see getSqlOutputKeywords
+	 * @throws SQLException
+	 */
+	public static void configMapSqlKeyValues(SqlResult result, List<KeyValue> keywords) throws SQLException {
+		if (keywords.isEmpty())
+			return;
+
+		for (KeyValue keyword : keywords) {
+			String value = "";
+			if (keyword.position.isEmpty())
+				value = result.getAllValues(keyword.key);
+			else
+				value = result.getValue(keyword.key, Integer.valueOf(keyword.position));
+			saveSqlValue(keyword, value);
 		}
 		KeyValue.printKeyValue(keywords, "saving value");
 	}
 
+	private static void saveSqlValue(KeyValue keyword, String value) {
+		String key = (String) keyword.value;
+		key = key.replace("$", "").replace("<", "").replace(">", "").trim();
+
+		if (!keyword.position.isEmpty()) {
+			value = value.split(",")[Integer.valueOf(keyword.position) - 1];
+		}
+		Config.putOutputValue(key, value, false);
+	}
+
 	private static String getAllValuesInColumn(ResultSet resSet, String column) throws SQLException {
 		resSet.beforeFirst();
 		List<String> results = new ArrayList<String>();
@@ -146,19 +207,7 @@ public class SqlHelper {
 		for (KeyValue keyword : keywords) {
 			String key = Helper.removeSurroundingQuotes(keyword.key);
 			String position = Helper.stringNormalize(keyword.position);
-			String expectedValue = Helper.stringRemoveLines((String) keyword.value);
 			String responseString = "";
-			String command = "";
-
-			String[] expected = expectedValue.split("[\\(\\)]");
-			// get value in between parenthesis
-			if (expected.length > 1) {
-				command = expected[0];
-				expectedValue = expected[1];
-			} else if (expected.length == 1) {
-				command = expectedValue;
-				expectedValue = "";
-			}
 
 			// if no position specified, Then set row to 1, else row = position
 			if (position.isEmpty()) {
@@ -169,12 +218,74 @@ public class SqlHelper {
 			}
 
 			// validate response
-			errorMessages.add(DataHelper.validateCommand(command, responseString, expectedValue));
+			errorMessages.add(validateSqlKeyword(keyword, responseString));
 		}
 
 		return errorMessages;
 	}
 
+	/**
+	 * requests values of validation keywords from result
+	 * 
+	 * @param result
+	 * @param keywords
+	 */
+	public static void requestSqlKeywords(SqlResult result, List<KeyValue> keywords) {
+		for (KeyValue keyword : keywords) {
+			String position = Helper.stringNormalize(keyword.position);
+			if (position.isEmpty())
+				result.withAllValues(keyword.key);
+			else
+				result.withValue(Helper.removeSurroundingQuotes(keyword.key), Integer.valueOf(position));
+		}
+	}
+
+	/**
+	 * validates keywords against result read in one pass. see
+	 * validateSqlKeywords(keywords, resSet)
+	 * 
+	 * @param keywords
+	 * @param result
+	 * @return
+	 * @throws SQLException
+	 */
+	public static List<String> validateSqlKeywords(List<KeyValue> keywords, SqlResult result) throws SQLException {
+		List<String> errorMessages = new ArrayList<String>();
+
+		for (KeyValue keyword : keywords) {
+			String key = Helper.removeSurroundingQuotes(keyword.key);
+			String position = Helper.stringNormalize(keyword.position);
+			String responseString = "";
+
+			if (position.isEmpty())
+				responseString = result.getAllValues(keyword.key);
+			else
+				responseString = Helper.removeSurroundingQuotes(result.getValue(key, Integer.valueOf(position)));
+
+			// validate response
+			errorMessages.add(validateSqlKeyword(keyword, responseString));
+		}
+
+		return errorMessages;
+	}
+
+	private static String validateSqlKeyword(KeyValue keyword, String responseString) {
+		String expectedValue = Helper.stringRemoveLines((String) keyword.value);
+		String command = "";
+
+		String[] expected = expectedValue.split("[\\(\\)]");
+		// get value in between parenthesis
+		if (expected.length > 1) {
+			command = expected[0];
+			expectedValue = expected[1];
+		} else if (expected.length == 1) {
+			command = expectedValue;
+			expectedValue = "";
+		}
+
+		return DataHelper.validateCommand(command, responseString, expectedValue);
+	}
+
 	/**
 	 * validates expected json string against json body from response
 	 * 
@@ -187,12 +298,42 @@ public class SqlHelper {
 			TestLog.logPass("expected: " + Helper.stringRemoveLines(expectedJson));
 			String key = StringUtils.substringBefore(expectedJson, ":");
 			String json = StringUtils.substringAfter(expectedJson, ":");
-			try {
-				String responseBody = resSet.getString(key);
-				JSONAssert.assertEquals(json, responseBody, JSONCompareMode.LENIENT);
-			} catch (JSONException e) {
-				e.printStackTrace();
-			}
+			validateJson(json, resSet.getString(key));
+		}
+	}
+
+	/**
+	 * requests value of json column at first row from result
+	 * 
+	 * @param result
+	 * @param expectedJson
+	 */
+	public static void requestJsonBody(SqlResult result, String expectedJson) {
+		result.withValue(StringUtils.substringBefore(expectedJson, ":"), 1);
+	}
+
+	/**
+	 * validates expected json string against json column at first row of result
+	 * read in one pass
+	 * 
+	 * @param expectedJson
+	 * @param result
+	 * @throws SQLException
+	 */
+	public static void validateByJsonBody(String expectedJson, SqlResult result) throws SQLException {
+		if (SqlHelper.isValidJson(expectedJson)) {
+			TestLog.logPass("expected: " + Helper.stringRemoveLines(expectedJson));
+			String key = StringUtils.substringBefore(expectedJson, ":");
+			String json = StringUtils.substringAfter(expectedJson, ":");
+			validateJson(json, result.getValue(key, 1));
+		}
+	}
+
+	private static void validateJson(String json, String responseBody) {
+		try {
+			JSONAssert.assertEquals(json, responseBody, JSONCompareMode.LENIENT);
+		} catch (JSONException e) {
+			e.printStackTrace();
 		}
 	}
 
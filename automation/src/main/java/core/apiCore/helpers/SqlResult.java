@@ -0,0 +1,113 @@
+package core.apiCore.helpers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * requested values of a forward only result set, read in one pass
+ *
+ * values are requested before reading: value of a column at a row, or all
+ * values of a column. other values are not kept, so memory does not grow with
+ * the number of rows, except for columns with all values requested
+ */
+public class SqlResult {
+
+	// key: row, value: columns
+	private final Map<Integer, Set<String>> requestedValues = new HashMap<Integer, Set<String>>();
+
+	// key: column|row
+	private final Map<String, String> values = new HashMap<String, String>();
+
+	// key: column
+	private final Map<String, List<String>> columns = new LinkedHashMap<String, List<String>>();
+
+	private int rowCount = 0;
+
+	/**
+	 * requests value of column at row
+	 *
+	 * @param column
+	 * @param row    starting at 1
+	 * @return
+	 */
+	public SqlResult withValue(String column, int row) {
+		requestedValues.computeIfAbsent(row, value -> new LinkedHashSet<String>()).add(column);
+		return this;
+	}
+
+	/**
+	 * requests all values of column
+	 *
+	 * @param column
+	 * @return
+	 */
+	public SqlResult withAllValues(String column) {
+		columns.putIfAbsent(column, new ArrayList<String>());
+		return this;
+	}
+
+	/**
+	 * reads requested values from current row to last row
+	 *
+	 * @param resSet positioned at first row
+	 * @return
+	 * @throws SQLException
+	 */
+	public SqlResult read(ResultSet resSet) throws SQLException {
+		do {
+			rowCount++;
+
+			Set<String> rowColumns = requestedValues.get(rowCount);
+			if (rowColumns != null) {
+				for (String column : rowColumns)
+					values.put(column + "|" + rowCount, resSet.getString(column));
+			}
+
+			for (Entry<String, List<String>> column : columns.entrySet())
+				column.getValue().add(resSet.getString(column.getKey()));
+		} while (resSet.next());
+
+		return this;
+	}
+
+	/**
+	 * gets value of column at row
+	 *
+	 * @param column
+	 * @param row
+	 * @return
+	 * @throws SQLException if row or value was not read
+	 */
+	public String getValue(String column, int row) throws SQLException {
+		String key = column + "|" + row;
+		if (row < 1 || row > rowCount || !values.containsKey(key))
+			throw new SQLException("value not found. column: " + column + " row: " + row + " rows: " + rowCount);
+		return values.get(key);
+	}
+
+	/**
+	 * gets all values of column, separated by ","
+	 *
+	 * @param column
+	 * @return
+	 * @throws SQLException if values were not read
+	 */
+	public String getAllValues(String column) throws SQLException {
+		List<String> columnValues = columns.get(column);
+		if (columnValues == null)
+			throw new SQLException("values not found. column: " + column);
+		return String.join(",", columnValues);
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+}
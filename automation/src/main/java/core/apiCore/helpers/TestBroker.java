@@ -0,0 +1,273 @@
+package core.apiCore.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+
+import core.support.configReader.Config;
+import core.support.objects.MessageObject;
+
+/**
+ * in process message broker, standing in for kafka, rabbitMq And service bus
+ *
+ * destinations are queues or topics. a queue delivers each message to one of
+ * its consumers. a topic delivers each message to all of its subscriptions,
+ * And drops messages without subscriptions. queues And subscriptions are
+ * bounded blocking queues. publishers wait when they are full, so messages are
+ * not lost. published messages are replied to by reply rules: replies are
+ * published to the outbound destination in place of the message
+ *
+ * outbound destinations are consumed by background consumers, started on
+ * first use And running until the suite finishes, adding messages to
+ * MessageObject.outboundMessages. each destination has its own consumer group
+ * And stop flag. start And shutdown hold the same lock, so a consumer started
+ * during shutdown is not stopped by it, And is not revived after it
+ *
+ * no benchmark is included: the tree has no test or benchmark harness to run
+ * one. throughput through receiveAndValidateMessages can be measured by a csv
+ * suite with message type TEST
+ *
+ * config:
+ * test.broker.capacity: max messages per queue or subscription. default: 100000
+ * test.broker.consumer.threads: consumer threads per outbound destination. default: 1
+ */
+public class TestBroker {
+
+	public static final String TEST_BROKER_CAPACITY = "test.broker.capacity";
+	public static final String TEST_BROKER_CONSUMER_THREADS = "test.broker.consumer.threads";
+
+	public static final String MESSAGE_ID_TOKEN = "{messageId}";
+	public static final String BODY_TOKEN = "{body}";
+
+	private static final int DEFAULT_CAPACITY = 100000;
+	private static final int DRAIN_BATCH_SIZE = 500;
+	private static final long POLL_TIMEOUT_MILLIS = 500;
+	private static final long PUBLISH_TIMEOUT_SECONDS = 60;
+	private static final long JOIN_TIMEOUT_MILLIS = 5000;
+
+	// key: queue or topic name, prefixed by type
+	private static final Map<String, Destination> destinations = new ConcurrentHashMap<String, Destination>();
+
+	// key: outbound destination
+	private static final Map<String, ConsumerGroup> consumers = new ConcurrentHashMap<String, ConsumerGroup>();
+	private static final Object lock = new Object();
+
+	/**
+	 * publishes message to destination. if reply rule is set, replies are
+	 * published to the outbound destination of the rule instead
+	 *
+	 * @param name
+	 * @param isTopic
+	 * @param message
+	 * @param rule    reply rule, or null
+	 * @throws InterruptedException
+	 */
+	public static void publish(String name, boolean isTopic, MessageObject message, ReplyRule rule)
+			throws InterruptedException {
+		if (rule == null) {
+			getDestination(name, isTopic).publish(message);
+			return;
+		}
+
+		Destination outbound = getDestination(rule.outboundName, rule.isOutboundTopic);
+		for (int i = 0; i < rule.count; i++)
+			outbound.publish(rule.reply(message));
+	}
+
+	/**
+	 * starts consumers for outbound destination, if not started
+	 *
+	 * @param name
+	 * @param isTopic
+	 */
+	public static void startConsumer(String name, boolean isTopic) {
+		String key = getKey(name, isTopic);
+		if (consumers.containsKey(key))
+			return;
+
+		synchronized (lock) {
+			if (consumers.containsKey(key))
+				return;
+
+			Destination destination = getDestination(name, isTopic);
+
+			// a topic subscription is shared by the consumer threads
+			BlockingQueue<MessageObject> queue = isTopic ? destination.subscribe() : destination.queue;
+
+			int threadCount = Math.max(Config.getIntValue(TEST_BROKER_CONSUMER_THREADS), 1);
+			ConsumerGroup group = new ConsumerGroup(queue, name, threadCount);
+			consumers.put(key, group);
+			group.start();
+		}
+	}
+
+	/**
+	 * stops consumers And removes all destinations
+	 */
+	public static void shutdown() {
+		synchronized (lock) {
+			for (ConsumerGroup group : consumers.values())
+				group.stop();
+			consumers.clear();
+			destinations.clear();
+		}
+	}
+
+	/**
+	 * consumer threads of one outbound destination, with their own stop flag
+	 */
+	private static class ConsumerGroup {
+		private final List<Thread> threads = new ArrayList<Thread>();
+		private volatile boolean isRunning = true;
+
+		ConsumerGroup(BlockingQueue<MessageObject> queue, String name, int threadCount) {
+			for (int i = 0; i < threadCount; i++) {
+				Thread thread = new Thread(() -> consume(queue, this), "test-broker-" + name + "-" + i);
+				thread.setDaemon(true);
+				threads.add(thread);
+			}
+		}
+
+		void start() {
+			for (Thread thread : threads)
+				thread.start();
+		}
+
+		void stop() {
+			isRunning = false;
+			for (Thread thread : threads) {
+				try {
+					thread.join(JOIN_TIMEOUT_MILLIS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * adds messages to outbound messages until the group is stopped. messages
+	 * are taken in batches
+	 *
+	 * @param queue
+	 * @param group
+	 */
+	private static void consume(BlockingQueue<MessageObject> queue, ConsumerGroup group) {
+		List<MessageObject> batch = new ArrayList<MessageObject>();
+		try {
+			while (group.isRunning) {
+				MessageObject message = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				if (message == null)
+					continue;
+
+				batch.add(message);
+				queue.drainTo(batch, DRAIN_BATCH_SIZE);
+				for (MessageObject received : batch)
+					MessageObject.outboundMessages.add(received);
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Destination getDestination(String name, boolean isTopic) {
+		return destinations.computeIfAbsent(getKey(name, isTopic), key -> new Destination(isTopic, getCapacity()));
+	}
+
+	private static String getKey(String name, boolean isTopic) {
+		return (isTopic ? "topic/" : "queue/") + name;
+	}
+
+	/**
+	 * global config value. destinations are shared by all tests
+	 */
+	private static int getCapacity() {
+		String value = Config.getGlobalValue(TEST_BROKER_CAPACITY);
+		return StringUtils.isNumeric(value) && !value.isEmpty() ? Integer.parseInt(value) : DEFAULT_CAPACITY;
+	}
+
+	/**
+	 * queue, or topic with subscriptions
+	 */
+	private static class Destination {
+		private final boolean isTopic;
+		private final int capacity;
+		private final BlockingQueue<MessageObject> queue;
+		private final List<BlockingQueue<MessageObject>> subscriptions = new CopyOnWriteArrayList<BlockingQueue<MessageObject>>();
+
+		Destination(boolean isTopic, int capacity) {
+			this.isTopic = isTopic;
+			this.capacity = capacity;
+			this.queue = isTopic ? null : new LinkedBlockingQueue<MessageObject>(capacity);
+		}
+
+		BlockingQueue<MessageObject> subscribe() {
+			BlockingQueue<MessageObject> subscription = new LinkedBlockingQueue<MessageObject>(capacity);
+			subscriptions.add(subscription);
+			return subscription;
+		}
+
+		void publish(MessageObject message) throws InterruptedException {
+			if (!isTopic) {
+				offer(queue, message);
+				return;
+			}
+			for (BlockingQueue<MessageObject> subscription : subscriptions)
+				offer(subscription, message);
+		}
+
+		private static void offer(BlockingQueue<MessageObject> queue, MessageObject message)
+				throws InterruptedException {
+			if (!queue.offer(message, PUBLISH_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+				throw new IllegalStateException("test broker destination is full. message id: " + message.getMessageId());
+		}
+	}
+
+	/**
+	 * replies to published messages. reply body tokens: {messageId}, {body}
+	 */
+	public static class ReplyRule {
+		private final String outboundName;
+		private final boolean isOutboundTopic;
+		private final int count;
+		private final String body;
+		private final boolean isCorrelated;
+
+		/**
+		 * @param outboundName    destination of replies
+		 * @param isOutboundTopic
+		 * @param count           replies per message
+		 * @param body            reply body. empty: message body
+		 * @param isCorrelated    reply correlation id is the message id
+		 */
+		public ReplyRule(String outboundName, boolean isOutboundTopic, int count, String body,
+				boolean isCorrelated) {
+			this.outboundName = outboundName;
+			this.isOutboundTopic = isOutboundTopic;
+			this.count = count;
+			this.body = body;
+			this.isCorrelated = isCorrelated;
+		}
+
+		private MessageObject reply(MessageObject message) {
+			String replyBody = message.getMessage();
+			if (!body.isEmpty())
+				replyBody = body.replace(MESSAGE_ID_TOKEN, message.getMessageId()).replace(BODY_TOKEN,
+						message.getMessage());
+
+			MessageObject reply = new MessageObject().withMessageType(message.getMessageType())
+					.withMessage(replyBody).withTopic(outboundName);
+			if (isCorrelated)
+				reply.withCorrelationId(message.getMessageId());
+			return reply;
+		}
+	}
+}
@@ -7,15 +7,23 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
@@ -41,11 +49,67 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
 import core.helpers.Helper;
+import core.support.configReader.Config;
 import core.support.logger.TestLog;
 import core.support.objects.KeyValue;
 import core.support.objects.ServiceObject;
 
+/**
+ * xml parsing, xpath And template helpers
+ * 
+ * parsers, transformers And compiled xpath expressions are created once per
+ * thread And reused. xml strings evaluated with xpath are parsed once per
+ * thread And reused while the same string is evaluated. large xml strings can
+ * be evaluated with a streaming reader, without building a document, for simple
+ * xpath expressions. eg. //id, /envelope/body/id, //body/id
+ * 
+ * config:
+ * service.xml.streaming.isEnabled: evaluate simple xpath expressions on large xml with streaming reader. default: false
+ * service.xml.streaming.minSize: min xml length in characters for streaming. default: 1000000
+ */
 public class XmlHelper {
+
+	public static final String XML_STREAMING_ENABLED = "service.xml.streaming.isEnabled";
+	public static final String XML_STREAMING_MIN_SIZE = "service.xml.streaming.minSize";
+
+	private static final int DEFAULT_STREAMING_MIN_SIZE = 1000000;
+	private static final int MAX_DOCUMENTS_PER_THREAD = 4;
+	private static final int MAX_XPATH_EXPRESSIONS_PER_THREAD = 256;
+
+	// xpath with element names only. eg. //id, /envelope/body/id, //body/id
+	private static final Pattern SIMPLE_XPATH = Pattern.compile("^//?[A-Za-z_][\\w.\\-]*(/[A-Za-z_][\\w.\\-]*)*$");
+
+	// parsers And transformers are not thread safe, reused per thread. parsers are
+	// replaced after parse errors
+	private static final ThreadLocal<DocumentBuilder> namespaceAwareBuilder = ThreadLocal
+			.withInitial(() -> newDocumentBuilder(true, false));
+	private static final ThreadLocal<DocumentBuilder> fileBuilder = ThreadLocal
+			.withInitial(() -> newDocumentBuilder(false, false));
+	private static final ThreadLocal<DocumentBuilder> validationBuilder = ThreadLocal
+			.withInitial(() -> newDocumentBuilder(false, true));
+	private static final ThreadLocal<TransformerFactory> transformerFactory = ThreadLocal
+			.withInitial(TransformerFactory::newInstance);
+	// pretty format sets indent on its factory, not shared with the document transformer
+	private static final ThreadLocal<TransformerFactory> prettyTransformerFactory = ThreadLocal
+			.withInitial(TransformerFactory::newInstance);
+	private static final ThreadLocal<Transformer> documentTransformer = ThreadLocal
+			.withInitial(XmlHelper::newDocumentTransformer);
+	private static final ThreadLocal<XPath> xpathObject = ThreadLocal
+			.withInitial(() -> XPathFactory.newInstance().newXPath());
+	private static final ThreadLocal<XMLInputFactory> inputFactory = ThreadLocal.withInitial(() -> {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		return factory;
+	});
+
+	// compiled xpath expressions are not thread safe. key: xpath
+	private static final ThreadLocal<Map<String, XPathExpression>> xpathExpressions = ThreadLocal
+			.withInitial(() -> newRecentlyUsedMap(MAX_XPATH_EXPRESSIONS_PER_THREAD));
+
+	// parsed documents for xpath evaluation, read only. key: xml string
+	private static final ThreadLocal<Map<String, Document>> documents = ThreadLocal
+			.withInitial(() -> newRecentlyUsedMap(MAX_DOCUMENTS_PER_THREAD));
+
 	/**
 	 * Convert a contents of a Document to a String
 	 * 
@@ -55,16 +119,11 @@ public class XmlHelper {
 	public static String convertDocumentToString(Document doc) {
 		try {
 			StringWriter sw = new StringWriter();
-			TransformerFactory tf = TransformerFactory.newInstance();
-			Transformer transformer = tf.newTransformer();
-			transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
-			transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-			transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-			transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-			transformer.transform(new DOMSource(doc), new StreamResult(sw));
+			documentTransformer.get().transform(new DOMSource(doc), new StreamResult(sw));
 
 			return sw.toString();
 		} catch (IllegalArgumentException | TransformerException ex) {
+			documentTransformer.remove();
 			throw new RuntimeException("Error converting to String", ex);
 		}
 	}
@@ -78,14 +137,11 @@ public class XmlHelper {
 	public static Document convertXmlStringToDocument(String xmlStr) {
 		Document doc = null;
 		try {
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			factory.setNamespaceAware(true);
-			DocumentBuilder builder = factory.newDocumentBuilder();
-
-			doc = builder.parse(new InputSource(new StringReader(xmlStr)));
+			doc = namespaceAwareBuilder.get().parse(new InputSource(new StringReader(xmlStr)));
 			doc.getDocumentElement().normalize();
 
 		} catch (Exception e) {
+			namespaceAwareBuilder.remove();
 			e.printStackTrace();
 			Helper.assertFalse(e.getMessage());
 		}
@@ -110,7 +166,7 @@ public class XmlHelper {
 	 * @param inputFilePath
 	 * @return Document
 	 */
-	public synchronized static Document readFile(String inputFilePath) {
+	public static Document readFile(String inputFilePath) {
 		Document doc = null;
 		int retry = 3;
 		do {
@@ -119,11 +175,10 @@ public class XmlHelper {
 
 				String inputFileContents = new String(Files.readAllBytes(Paths.get(inputFilePath)));
 				inputFileContents = DataHelper.replaceParameters(inputFileContents);
-				DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-				DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-				doc = dBuilder.parse(new InputSource(new StringReader(inputFileContents)));
+				doc = fileBuilder.get().parse(new InputSource(new StringReader(inputFileContents)));
 				doc.getDocumentElement().normalize();
 			} catch (Exception ex) {
+				fileBuilder.remove();
 				Thread.interrupted();
 			}
 		} while (doc == null && retry > 0);
@@ -143,6 +198,7 @@ public class XmlHelper {
 
 	/**
 	 * Get text value of the node specified by xpath
+	 * nodes belong to the parsed document reused for the xml string, read only
 	 * 
 	 * @param xpathString
 	 * @param xmlString
@@ -150,9 +206,8 @@ public class XmlHelper {
 	 */
 	public static NodeList getNodeList(String xpathString, String xmlString) {
 		try {
-			Document doc = convertXmlStringToDocument(xmlString);
-			XPath xpath = XPathFactory.newInstance().newXPath();
-			NodeList nodeList = (NodeList) xpath.evaluate(xpathString, doc, XPathConstants.NODESET);
+			Document doc = getDocument(xmlString);
+			NodeList nodeList = (NodeList) compileXpath(xpathString).evaluate(doc, XPathConstants.NODESET);
 
 			if (nodeList == null || nodeList.getLength() == 0) {
 				TestLog.ConsoleLog("No node found for xpath value: {0}", xpathString);
@@ -193,18 +248,20 @@ public class XmlHelper {
 	 * @return result list as string separated by ","
 	 */
 	public static String getXpathFromXml(String xml, String xpath) {
-		List<String> valueList = new ArrayList<String>();
-		// convert xml string to doc
-		Document doc = convertXmlStringToDocument(xml);
-
-		XPathFactory xPathFactory = XPathFactory.newInstance();
+		// large xml with simple xpath is evaluated without building a document
+		if (isStreamingXpath(xml, xpath)) {
+			List<String> values = getXpathValuesByStreaming(xml, xpath);
+			if (values != null)
+				return DataHelper.listToString(values);
+		}
 
-		// Create XPath object from XPathFactory
-		XPath xpathObject = xPathFactory.newXPath();
+		List<String> valueList = new ArrayList<String>();
+		// get parsed doc for xml string
+		Document doc = getDocument(xml);
 
 		try {
-			// Compile the XPath expression for getting all brands
-			XPathExpression xPathEnvelopeExpr = xpathObject.compile(xpath);
+			// get compiled xpath expression
+			XPathExpression xPathEnvelopeExpr = compileXpath(xpath);
 
 			Object result = xPathEnvelopeExpr.evaluate(doc, XPathConstants.NODESET);
 
@@ -403,27 +460,10 @@ public class XmlHelper {
 	 */
 	public static boolean isValidXmlString(String xmlString) {
 		try {
-			DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-			dbFactory.setValidating(false);
-			dbFactory.setSchema(null);
-
-			DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-			dBuilder.setErrorHandler(new ErrorHandler() {
-				@Override
-				public void warning(SAXParseException exception) throws SAXException {
-				}
-
-				@Override
-				public void error(SAXParseException exception) throws SAXException {
-				}
-
-				@Override
-				public void fatalError(SAXParseException exception) throws SAXException {
-				}
-			});
-			dBuilder.parse(new InputSource(new StringReader(xmlString)));
+			validationBuilder.get().parse(new InputSource(new StringReader(xmlString)));
 			return true;
 		} catch (Exception e) {
+			validationBuilder.remove();
 			return false;
 		}
 	}
@@ -433,9 +473,9 @@ public class XmlHelper {
 			Source xmlInput = new StreamSource(new StringReader(input));
 			StringWriter stringWriter = new StringWriter();
 			StreamResult xmlOutput = new StreamResult(stringWriter);
-			TransformerFactory transformerFactory = TransformerFactory.newInstance();
-			transformerFactory.setAttribute("indent-number", indent);
-			Transformer transformer = transformerFactory.newTransformer();
+			TransformerFactory factory = prettyTransformerFactory.get();
+			factory.setAttribute("indent-number", indent);
+			Transformer transformer = factory.newTransformer();
 			transformer.setOutputProperty(OutputKeys.INDENT, "yes");
 			transformer.transform(xmlInput, xmlOutput);
 			return xmlOutput.getWriter().toString();
@@ -545,4 +585,215 @@ public class XmlHelper {
 		}
 		return namespaces;
 	}
+
+	/**
+	 * parsed document for xml string, reused per thread. document is read only
+	 * 
+	 * @param xml
+	 * @return
+	 */
+	private static Document getDocument(String xml) {
+		Map<String, Document> threadDocuments = documents.get();
+		Document doc = threadDocuments.get(xml);
+		if (doc == null) {
+			doc = convertXmlStringToDocument(xml);
+			threadDocuments.put(xml, doc);
+		}
+		return doc;
+	}
+
+	/**
+	 * compiled xpath expression, reused per thread
+	 * 
+	 * @param xpath
+	 * @return
+	 * @throws XPathExpressionException
+	 */
+	private static XPathExpression compileXpath(String xpath) throws XPathExpressionException {
+		Map<String, XPathExpression> expressions = xpathExpressions.get();
+		XPathExpression expression = expressions.get(xpath);
+		if (expression == null) {
+			expression = xpathObject.get().compile(xpath);
+			expressions.put(xpath, expression);
+		}
+		return expression;
+	}
+
+	/**
+	 * returns true if streaming is enabled, xml is large And xpath has element
+	 * names only
+	 * 
+	 * @param xml
+	 * @param xpath
+	 * @return
+	 */
+	private static boolean isStreamingXpath(String xml, String xpath) {
+		if (!Config.getBooleanValue(XML_STREAMING_ENABLED))
+			return false;
+
+		int minSize = Config.getIntValue(XML_STREAMING_MIN_SIZE);
+		if (minSize == -1)
+			minSize = DEFAULT_STREAMING_MIN_SIZE;
+		return xml.length() >= minSize && SIMPLE_XPATH.matcher(xpath.trim()).matches();
+	}
+
+	/**
+	 * evaluates simple xpath with streaming reader. values are the text content of
+	 * matching elements, in document order, as with xpath evaluation on document
+	 * elements with namespace do not match, as xpath without namespace context
+	 * 
+	 * @param xml
+	 * @param xpath
+	 * @return null if xml could not be read
+	 */
+	private static List<String> getXpathValuesByStreaming(String xml, String xpath) {
+		xpath = xpath.trim();
+		boolean isDescendant = xpath.startsWith("//");
+		String[] steps = xpath.substring(isDescendant ? 2 : 1).split("/");
+
+		List<String> values = new ArrayList<String>();
+		List<String> path = new ArrayList<String>();
+		List<StringBuilder> matches = new ArrayList<StringBuilder>(); // open matching elements
+		List<Integer> matchDepths = new ArrayList<Integer>();
+		List<Integer> matchIndexes = new ArrayList<Integer>();
+
+		XMLStreamReader reader = null;
+		try {
+			reader = inputFactory.get().createXMLStreamReader(new StringReader(xml));
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					boolean hasNamespace = !StringUtils.isEmpty(reader.getNamespaceURI());
+					path.add(hasNamespace ? null : reader.getLocalName());
+					if (isPathMatch(path, steps, isDescendant)) {
+						matches.add(new StringBuilder());
+						matchDepths.add(path.size());
+						matchIndexes.add(values.size());
+						values.add(StringUtils.EMPTY);
+					}
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					for (StringBuilder match : matches)
+						match.append(reader.getText());
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					int last = matches.size() - 1;
+					if (last >= 0 && matchDepths.get(last) == path.size()) {
+						values.set(matchIndexes.get(last), matches.get(last).toString());
+						matches.remove(last);
+						matchDepths.remove(last);
+						matchIndexes.remove(last);
+					}
+					path.remove(path.size() - 1);
+					break;
+				default:
+					break;
+				}
+			}
+		} catch (XMLStreamException e) {
+			TestLog.ConsoleLog("xml could not be streamed, evaluating xpath on document: " + e.getMessage());
+			return null;
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					e.getMessage();
+				}
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * returns true if element path matches xpath steps
+	 * 
+	 * @param path         element names from root
+	 * @param steps        xpath element names
+	 * @param isDescendant xpath starts with //
+	 * @return
+	 */
+	private static boolean isPathMatch(List<String> path, String[] steps, boolean isDescendant) {
+		int offset = path.size() - steps.length;
+		if (offset < 0 || (!isDescendant && offset != 0))
+			return false;
+		for (int i = 0; i < steps.length; i++) {
+			if (!steps[i].equals(path.get(offset + i)))
+				return false;
+		}
+		return true;
+	}
+
+	private static DocumentBuilder newDocumentBuilder(boolean isNamespaceAware, boolean isIgnoreErrors) {
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(isNamespaceAware);
+			if (isIgnoreErrors) {
+				factory.setValidating(false);
+				factory.setSchema(null);
+			}
+			DocumentBuilder builder = factory.newDocumentBuilder();
+			if (isIgnoreErrors) {
+				builder.setErrorHandler(new ErrorHandler() {
+					@Override
+					public void warning(SAXParseException exception) throws SAXException {
+					}
+
+					@Override
+					public void error(SAXParseException exception) throws SAXException {
+					}
+
+					@Override
+					public void fatalError(SAXParseException exception) throws SAXException {
+					}
+				});
+			}
+			return builder;
+		} catch (ParserConfigurationException e) {
+			throw new RuntimeException("xml parser could not be created", e);
+		}
+	}
+
+	private static Transformer newDocumentTransformer() {
+		try {
+			Transformer transformer = transformerFactory.get().newTransformer();
+			transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
+			transformer.setOutputProperty(OutputKeys.METHOD, "xml");
+			transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+			transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+			return transformer;
+		} catch (TransformerConfigurationException e) {
+			throw new RuntimeException("xml transformer could not be created", e);
+		}
+	}
+
+	/**
+	 * clears parsers, transformers, compiled xpath expressions And parsed
+	 * documents of the current thread
+	 */
+	public static void clear() {
+		namespaceAwareBuilder.remove();
+		fileBuilder.remove();
+		validationBuilder.remove();
+		transformerFactory.remove();
+		prettyTransformerFactory.remove();
+		documentTransformer.remove();
+		xpathObject.remove();
+		inputFactory.remove();
+		xpathExpressions.remove();
+		documents.remove();
+	}
+
+	private static <T> Map<String, T> newRecentlyUsedMap(int maxSize) {
+		return new LinkedHashMap<String, T>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
 }
@@ -1,7 +1,5 @@
 package core.apiCore.interfaces;
 
-import static io.restassured.RestAssured.given;
-
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -12,12 +10,12 @@ import java.util.Map;
 import org.apache.commons.lang.StringUtils;
 
 import core.apiCore.helpers.DataHelper;
+import core.apiCore.helpers.RestClientRegistry;
 import core.helpers.Helper;
 import core.support.configReader.Config;
 import core.support.logger.TestLog;
 import core.support.objects.KeyValue;
 import core.support.objects.ServiceObject;
-import io.restassured.RestAssured;
 import io.restassured.specification.RequestSpecification;
 
 public class Authentication {
@@ -44,12 +42,6 @@ public class Authentication {
 		if (Config.getBooleanValue(AUTHENTICATION_DISABLE))
 			return;
 
-		// set timeout from api config
-		RestApiInterface.setTimeout();
-
-		// set proxy from config file
-		RestApiInterface.setProxy();
-
 		// replace parameters for request body, including template file (json, xml, or
 		// other)
 		serviceObject.withRequestBody(DataHelper.getRequestBodyIncludingTemplate(serviceObject));
@@ -84,10 +76,6 @@ public class Authentication {
 
 		URL aURL = Helper.convertToUrl(url);
 		TestLog.logPass("request URL: " + aURL.toString());
-
-		RestAssured.baseURI = aURL.getProtocol() + "://" + aURL.getHost();
-		RestAssured.port = aURL.getPort();
-		RestAssured.basePath = aURL.getPath();
 	}
 
 	private static RequestSpecification evaluateRequest(ServiceObject serviceObject) {
@@ -137,7 +125,7 @@ public class Authentication {
 			String scope = parameterMap.get("scope");
 			String redirectUri = parameterMap.get("redirectUri");
 
-			request = given().auth().preemptive().basic(clientId, clientSecret).formParam("grant_type", grantType)
+			request = RestClientRegistry.newRequest(Helper.convertToUrl(serviceObject.getUriPath())).auth().preemptive().basic(clientId, clientSecret).formParam("grant_type", grantType)
 					.formParam("username", username).formParam("password", password)
 					.formParam("redirect_uri", redirectUri).formParam("scope", scope);
 			break;
@@ -231,7 +219,7 @@ public class Authentication {
 
 		String key = (String) keyword.value;
 		key = key.replace("$", "").replace("<", "").replace(">", "").trim();
-		Config.putValue(key, authorization, false);
+		Config.putOutputValue(key, authorization, false);
 		
 		ArrayList<String> request = (ArrayList<String>) authorization;
 		TestLog.logPass("output parameter: " + key + " value: " + Arrays.toString(request.toArray()));
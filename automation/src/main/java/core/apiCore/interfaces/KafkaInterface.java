@@ -1,24 +1,20 @@
 package core.apiCore.interfaces;
 
-import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
-import org.apache.kafka.common.header.Header;
-import org.apache.kafka.common.serialization.StringSerializer;
 
 import core.apiCore.helpers.DataHelper;
+import core.apiCore.helpers.KafkaOutboundConsumer;
+import core.apiCore.helpers.KafkaProducerRegistry;
 import core.apiCore.helpers.MessageQueueHelper;
+import core.helpers.Helper;
 import core.support.configReader.Config;
 import core.support.logger.TestLog;
 import core.support.objects.KeyValue;
@@ -40,6 +36,7 @@ public class KafkaInterface {
 	public static final String KAFKA_GROUP_ID = "kafka.group.id";
 	public static final String KAFKA_TIMEOUT_SECONDS = "kafka.timeout.seconds";
 	public static final String KAFKA_MESSAGE_ID_PREFIX = "kafka.msgId.prefix";
+	public static final String KAFKA_MESSAGE_COUNT = "kafka.message.count";
 	public static Map<ConsumerRecord<String, String>, Boolean> outboundMessages = new ConcurrentHashMap<ConsumerRecord<String, String>, Boolean>();
 
 	/**
@@ -71,6 +68,9 @@ public class KafkaInterface {
 
 	/**
 	 * send kafka message
+	 * message is sent message_count times (option), with the same message id.
+	 * messages are sent with the shared producer And acknowledged together.
+	 * messages are sent to the test broker instead, if enabled
 	 * 
 	 * @param serviceObject
 	 */
@@ -80,97 +80,61 @@ public class KafkaInterface {
 		if (serviceObject.getRequestBody().isEmpty())
 			return;
 
-		KafkaProducer<String, String> producer = null;
-
 		String messageBody = serviceObject.getRequestBody();
+		int messageCount = Math.max(Config.getIntValue(KAFKA_MESSAGE_COUNT), 1);
 		try {
+			if (TestBrokerInterface.isEnabled()) {
+				TestBrokerInterface.sendMessage(serviceObject, messageId, messageType.KAFKA,
+						Config.getValue(KFAKA_TOPIC), true, getOutboundTopic(), true, messageCount);
+				return;
+			}
 
-			Properties properties = new Properties();
-			properties.put("bootstrap.servers", Config.getValue(KAFKA_SERVER_URL));
-			// properties.put("client.id", Config.getValue(KAFKA_CLIENT_ID));
-			properties.put("key.serializer", StringSerializer.class);
-			properties.put("value.serializer", StringSerializer.class);
-			properties.put("retries", "3");
-
-			producer = new KafkaProducer<String, String>(properties);
-
-			final ProducerRecord<String, String> record = new ProducerRecord<>(Config.getValue(KFAKA_TOPIC),
-					messageId.toString(), messageBody);
+			List<ProducerRecord<String, String>> records = new ArrayList<ProducerRecord<String, String>>();
+			for (int i = 0; i < messageCount; i++)
+				records.add(new ProducerRecord<>(Config.getValue(KFAKA_TOPIC), messageId.toString(), messageBody));
 
-			producer.send(record).get();
+			KafkaProducerRegistry.sendAndWait(records);
 
-			TestLog.logPass("sent messageId : " + messageId + "\n message : " + messageBody);
+			TestLog.logPass("sent messageId : " + messageId + "\n message : " + messageBody
+					+ (messageCount > 1 ? "\n message count: " + messageCount : ""));
 
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause() == null ? e : e.getCause();
+			cause.printStackTrace();
+			Helper.assertFalse("kafka send failed: " + cause);
 		} catch (Exception e) {
 			e.printStackTrace();
+			Helper.assertFalse("kafka send failed: " + e);
 		}
-
-		producer.close();
 	}
 
 	/**
 	 * gets message from outbound queue Adds messages to ouboutMessage hashmap
+	 * messages are received by the background consumer of the outbound topic
 	 * 
 	 * @param receiver
 	 * @return
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public static void getOutboundMessages() {
-		Properties props = new Properties();
-		props.put("bootstrap.servers", Config.getValue(KAFKA_SERVER_URL));
-		props.put("group.id", Config.getValue(KAFKA_GROUP_ID));
-		props.put("auto.offset.reset", "earliest");
-		props.put("enable.auto.commit", "true");
-
-		props.put("auto.commit.interval.ms", "1000");
-		props.put("session.timeout.ms", "30000");
-		props.put("key.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
-		props.put("value.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
-
-		String topic = Config.getValue(KFAKA_TOPIC);
-		String outboundTopic = Config.getValue(KFAKA_OUTBOUND_TOPIC);
-
-		// set outbound topic if defined
-		if (!outboundTopic.isEmpty())
-			topic = outboundTopic;
-
-		KafkaConsumer consumer = new KafkaConsumer(props);
-		consumer.subscribe(Collections.singletonList(topic));
-
-		final int giveUp = 5;
-		int noRecordsCount = 0;
-		ConsumerRecords<String, String> consumerRecords = null;
-
-		do {
-			// TestLog.ConsoleLog("attempt: " + noRecordsCount);
-			consumerRecords = consumer.poll(Duration.ofMillis(3000));
-
-			if (consumerRecords.count() == 0) {
-				noRecordsCount++;
-				continue;
-			}
-
-			// add received message on this thread to outboundMessages
-			consumerRecords.forEach(record -> {
-
-				List<String> headers = new ArrayList<String>();
-				for (Header header : record.headers()) {
-					headers.add(header.value().toString());
-				}
+		String topic = getOutboundTopic();
 
-				MessageObject message = new MessageObject().withMessageType(messageType.KAFKA)
-						.withMessageId(record.key()).withMessage(record.value()).withTopic(record.topic())
-						.withHeader(headers);
+		// consumer is started on first use And runs until the suite finishes
+		if (TestBrokerInterface.isEnabled())
+			TestBrokerInterface.getOutboundMessages(topic, true);
+		else
+			KafkaOutboundConsumer.start(topic);
 
-				TestLog.logPass("Received messageId '" + message.getMessageId() + "\n with message content: "
-						+ message.getMessage());
-				MessageObject.outboundMessages.put(message, true);
-			});
-			TestLog.logPass("global message size in outbound list: " + outboundMessages.size());
-			consumer.commitAsync();
-		} while (consumerRecords.isEmpty() && noRecordsCount < giveUp);
+		TestLog.logPass("global message size in outbound list: " + MessageObject.outboundMessages.size());
+	}
 
-		consumer.close();
+	/**
+	 * outbound topic if defined, else topic
+	 * 
+	 * @return
+	 */
+	private static String getOutboundTopic() {
+		String outboundTopic = Config.getValue(KFAKA_OUTBOUND_TOPIC);
+		return outboundTopic.isEmpty() ? Config.getValue(KFAKA_TOPIC) : outboundTopic;
 	}
 
 	public static void evaluateOption(ServiceObject serviceObject) {
@@ -204,6 +168,10 @@ public class KafkaInterface {
 				break;
 			case "response_identifier":
 				Config.putValue(MessageQueueHelper.RESPONSE_IDENTIFIER, keyword.value, false);
+				break;
+			case "message_count":
+				Config.putValue(KAFKA_MESSAGE_COUNT, keyword.value, false);
+				break;
 			default:
 				break;
 			}
@@ -221,5 +189,6 @@ public class KafkaInterface {
 		Config.putValue(KFAKA_TOPIC, defaultTopic, false);
 		Config.putValue(KFAKA_OUTBOUND_TOPIC, ouboundTopic, false);
 		Config.putValue(MessageQueueHelper.RESPONSE_IDENTIFIER, StringUtils.EMPTY, false);
+		Config.putValue(KAFKA_MESSAGE_COUNT, 1, false);
 	}
 }
\ No newline at end of file
@@ -3,6 +3,9 @@ package core.apiCore.interfaces;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
 
@@ -14,6 +17,7 @@ import com.rabbitmq.client.GetResponse;
 
 import core.apiCore.helpers.DataHelper;
 import core.apiCore.helpers.MessageQueueHelper;
+import core.apiCore.helpers.RabbitMqOutboundConsumer;
 import core.helpers.Helper;
 import core.support.configReader.Config;
 import core.support.logger.TestLog;
@@ -26,6 +30,16 @@ import core.support.objects.TestObject;
 /**
  * @author ehsan.matean
  *
+ * the connection is shared by all tests. each test thread publishes on its own
+ * channel, with publisher confirms. the channel is closed at test end, so
+ * channels do not grow with the number of threads. outbound queues are
+ * consumed by RabbitMqOutboundConsumer
+ *
+ * if test.broker.isEnabled is set, messages are sent to And received from
+ * queues of the test broker. exchanges are not used
+ *
+ * config:
+ * rabbitMQ.confirm.timeoutSeconds: time to wait for the broker to confirm a sent message. default: 30
  */
 public class RabbitMqInterface {
 
@@ -44,10 +58,24 @@ public class RabbitMqInterface {
 	public static final String RABBIT_MQ_DECLARE_QUEUE = "rabbitMQ.queue.declare";
 
 	public static final String RABBIT_MQ_MESSAGE_ID_PREFIX = "rabbitMQ.msgId.prefix";
+	public static final String RABBIT_MQ_CONFIRM_TIMEOUT_SECONDS = "rabbitMQ.confirm.timeoutSeconds";
+
+	private static final int DEFAULT_CONFIRM_TIMEOUT_SECONDS = 30;
 
 	public static Connection connection = null;
+
+	/**
+	 * @deprecated channels are per thread. use getChannel()
+	 * 
+	 * last channel created. closed at the end of the test that created it
+	 */
+	@Deprecated
 	public static Channel channel;
 
+	// channels are not thread safe. one channel per test thread
+	private static final ThreadLocal<Channel> threadChannel = new ThreadLocal<Channel>();
+	private static final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+
 	/**
 	 * interface for database calls
 	 * 
@@ -58,7 +86,8 @@ public class RabbitMqInterface {
 	public static void testRabbitMqInterface(ServiceObject serviceObject) throws Exception {
 
 		// connect to rabbitMq
-		connectRabbitMq(serviceObject);
+		if (!TestBrokerInterface.isEnabled())
+			connectRabbitMq(serviceObject);
 
 		// evaluate additional options
 		evaluateOption(serviceObject);
@@ -83,7 +112,7 @@ public class RabbitMqInterface {
 	 * @throws Exception
 	 */
 	public synchronized static void connectRabbitMq(ServiceObject serviceObject) {
-		if (channel == null) {
+		if (connection == null || !connection.isOpen()) {
 			try {
 				ConnectionFactory factory = new ConnectionFactory();
 				int port = Config.getIntValue(RABBIT_MQ_PORT);
@@ -102,7 +131,6 @@ public class RabbitMqInterface {
 					factory.setVirtualHost(Config.getValue(RABBIT_MQ_VIRTUAL_HOST));
 
 				connection = factory.newConnection();
-				channel = connection.createChannel();
 				Helper.waitForSeconds(1);
 			} catch (Exception e) {
 				e.printStackTrace();
@@ -112,6 +140,74 @@ public class RabbitMqInterface {
 		}
 	}
 
+	/**
+	 * gets channel of current thread. channel is created on first use, with
+	 * publisher confirms enabled
+	 * 
+	 * @return
+	 * @throws Exception
+	 */
+	public static Channel getChannel() throws Exception {
+		Channel current = threadChannel.get();
+		if (current != null && current.isOpen())
+			return current;
+
+		if (current != null)
+			channels.remove(current);
+		current = connection.createChannel();
+		current.confirmSelect();
+		threadChannel.set(current);
+		channels.add(current);
+		channel = current;
+		return current;
+	}
+
+	/**
+	 * closes channel of current thread, if open. called at test end
+	 */
+	public static void closeThreadChannel() {
+		Channel current = threadChannel.get();
+		threadChannel.remove();
+		if (current == null)
+			return;
+
+		channels.remove(current);
+		try {
+			if (current.isOpen())
+				current.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * @deprecated outbound queues are consumed by RabbitMqOutboundConsumer
+	 * 
+	 * gets up to max messages from queue on the channel of the current thread
+	 * And adds them to outbound messages
+	 * 
+	 * @param queueName
+	 * @param maxMessages
+	 * @throws Exception
+	 */
+	@Deprecated
+	public static void getBatchMessages(String queueName, int maxMessages) throws Exception {
+		int currentMessageCount = 0;
+		do {
+			GetResponse delivery = getChannel().basicGet(queueName, true);
+			if (delivery == null)
+				break;
+
+			String messageString = new String(delivery.getBody(), "UTF-8");
+			MessageObject message = new MessageObject().withMessageType(messageType.RABBITMQ)
+					.withMessageId(delivery.getProps().getMessageId())
+					.withCorrelationId(delivery.getProps().getCorrelationId()).withMessage(messageString);
+			TestLog.logPass("Received message with Id: " + message.getMessageId() + " message: " + message.getMessage());
+			MessageObject.outboundMessages.add(message);
+			currentMessageCount++;
+		} while (currentMessageCount < maxMessages);
+	}
+
 	/**
 	 * send rabbitMq message
 	 * 
@@ -120,6 +216,16 @@ public class RabbitMqInterface {
 	public static void sendRabbitMqMessage(ServiceObject serviceObject, String messageId) {
 		TestLog.ConsoleLog("rabbitMq request body: " + serviceObject.getRequestBody());
 
+		if (TestBrokerInterface.isEnabled()) {
+			try {
+				TestBrokerInterface.sendMessage(serviceObject, messageId, messageType.RABBITMQ,
+						Config.getValue(RABBIT_MQ_QUEUE), false, getOutboundQueue(), false, 1);
+			} catch (Exception e) {
+				throw new RuntimeException("Could not send message. ", e);
+			}
+			return;
+		}
+
 		// set basic properties
 		BasicProperties props = evaluateRequestHeaders(serviceObject);
 		props = props.builder().correlationId(messageId).messageId(messageId).build();
@@ -127,12 +233,19 @@ public class RabbitMqInterface {
 		String exchange = Config.getValue(RABBIT_MQ_EXCHANGE);
 		String queueName = Config.getValue(RABBIT_MQ_QUEUE);
 		String exchangeType = Config.getValue(RABBIT_MQ_EXCHANGE_TYPE);
+		int confirmTimeoutSeconds = Config.getIntValue(RABBIT_MQ_CONFIRM_TIMEOUT_SECONDS);
+		if (confirmTimeoutSeconds < 0)
+			confirmTimeoutSeconds = DEFAULT_CONFIRM_TIMEOUT_SECONDS;
 
 		try {
+			Channel channel = getChannel();
 			if (!exchangeType.isEmpty())
 				channel.exchangeDeclare(exchange, exchangeType);
 
 			channel.basicPublish(exchange, queueName, props, serviceObject.getRequestBody().getBytes());
+
+			// fails if message is not confirmed by broker
+			channel.waitForConfirmsOrDie(TimeUnit.SECONDS.toMillis(confirmTimeoutSeconds));
 		} catch (Exception e) {
 			throw new RuntimeException("Could not send message. ", e);
 		}
@@ -231,34 +344,45 @@ public class RabbitMqInterface {
 	}
 
 	/**
-	 * close connection
+	 * close channels And connection
 	 */
-	public static void closeConnection() {
+	public synchronized static void closeConnection() {
 		try {
-			channel.close();
-			connection.close();
+			for (Channel openChannel : channels) {
+				if (openChannel.isOpen())
+					openChannel.close();
+			}
+			channels.clear();
+			channel = null;
+			if (connection != null && connection.isOpen())
+				connection.close();
+			connection = null;
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * gets message from outbound queue Adds messages to ouboutMessage hashmap
+	 * starts consumer for outbound queue, if not started. consumer adds messages
+	 * to outboundMessages as they arrive
 	 * 
-	 * @param receiver
-	 * @return
 	 * @throws Exception
 	 */
 	public static void getOutboundMessages() throws Exception {
-		String queueName = Config.getValue(RABBIT_MQ_QUEUE);
-		String outboundQueue = Config.getValue(RABBIT_MQ_OUTBOUND_QUEUE);
+		String queueName = getOutboundQueue();
 		boolean queueDurable = Config.getBooleanValue(RABBIT_MQ_QUEUE_DURABLE);
 		boolean isDeclareQueue = Config.getBooleanValue(RABBIT_MQ_DECLARE_QUEUE);
 
-		// set outbound queue if defined
-		if (!outboundQueue.isEmpty())
-			queueName = outboundQueue;
+		if (TestBrokerInterface.isEnabled()) {
+			TestBrokerInterface.getOutboundMessages(queueName, false);
+			return;
+		}
 
+		// queue is declared And bound once, before consumer is started
+		if (RabbitMqOutboundConsumer.isStarted(queueName))
+			return;
+
+		Channel channel = getChannel();
 		if (isDeclareQueue)
 			channel.queueDeclare(queueName, queueDurable, false, false, null);
 
@@ -274,37 +398,24 @@ public class RabbitMqInterface {
 			channel.exchangeDeclare(exchangeName, exchangeType);
 		if (!exchangeName.isEmpty())
 			channel.queueBind(queueName, exchangeName, "");
-		
-		// get messages in batches
-		getBatchMessages(queueName, 10);
+
+		int prefetch = Config.getIntValue(RabbitMqOutboundConsumer.RABBIT_MQ_CONSUMER_PREFETCH);
+		if (prefetch < 0)
+			prefetch = RabbitMqOutboundConsumer.DEFAULT_PREFETCH;
+
+		// consumer is started on first use And runs until the suite finishes
+		RabbitMqOutboundConsumer.start(connection, queueName, prefetch);
+
+		TestLog.logPass("global message size in outbound list: " + MessageObject.outboundMessages.size());
 	}
-	
+
 	/**
-	 * attempt to get a number of messages from the queue
-	 * @param queueName
-	 * @param maxMessages
-	 * @throws Exception
+	 * outbound queue if defined, else queue
+	 * 
+	 * @return
 	 */
-	public static void getBatchMessages(String queueName, int maxMessages) throws Exception {
-		int currentMessageCount = 0;
-		do {
-			GetResponse delivery = channel.basicGet(queueName, true);
-	
-			if (delivery != null) {
-				String messageString = new String(delivery.getBody(), "UTF-8");
-	
-				MessageObject message = new MessageObject().withMessageType(messageType.RABBITMQ)
-						.withMessageId(delivery.getProps().getMessageId())
-						.withCorrelationId(delivery.getProps().getCorrelationId()).withMessage(messageString);
-	
-				if (message != null) {
-					TestLog.logPass(
-							"Received message with Id: " + message.getMessageId() + " message: " + message.getMessage());
-					MessageObject.outboundMessages.put(message, true);
-				}
-			}else
-				break;
-			currentMessageCount++;
-		}while(currentMessageCount < maxMessages);
+	private static String getOutboundQueue() {
+		String outboundQueue = Config.getValue(RABBIT_MQ_OUTBOUND_QUEUE);
+		return outboundQueue.isEmpty() ? Config.getValue(RABBIT_MQ_QUEUE) : outboundQueue;
 	}
-}
\ No newline at end of file
+}
@@ -1,24 +1,30 @@
 package core.apiCore.interfaces;
 
-import static io.restassured.RestAssured.given;
-
 import java.io.File;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
 
 import core.apiCore.ServiceManager;
+import core.apiCore.helpers.AsyncHttpHelper;
 import core.apiCore.helpers.DataHelper;
 import core.apiCore.helpers.DataHelper.JSON_COMMAND;
 import core.apiCore.helpers.JsonHelper;
+import core.apiCore.helpers.JsonStreamValidator;
+import core.apiCore.helpers.RestClientRegistry;
 import core.helpers.Helper;
 import core.helpers.StopWatchHelper;
 import core.helpers.UtilityHelper;
@@ -27,11 +33,13 @@ import core.support.logger.TestLog;
 import core.support.objects.KeyValue;
 import core.support.objects.ServiceObject;
 import core.support.objects.TestObject;
+import core.support.runner.TestExecutors;
 import io.restassured.RestAssured;
 import io.restassured.config.HttpClientConfig;
 import io.restassured.config.RestAssuredConfig;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
 import io.restassured.specification.RequestSpecification;
 
 public class RestApiInterface {
@@ -45,11 +53,13 @@ public class RestApiInterface {
 	private static final String OPTION_PAGINATION_MAX_PAGES = "PAGINATION_MAX_PAGES";
 	private static final String OPTION_PAGINATION_FROM = "PAGINATION_FROM";
 	private static final String OPTION_PAGINATION_INCREMENET = "PAGINATION_INCREMENT";
+	private static final String OPTION_PAGINATION_CONCURRENT_PAGES = "PAGINATION_CONCURRENT_PAGES";
 
 	public static final String API_PAGINATION_STOP_CRITERIA = "api.pagination.stop.criteria";
 	public static final String API_PAGINATION_MAX_PAGES = "api.pagination.max.pages";
 	public static final String API_PAGINATION_PAGES_FROM = "api.pagination.pages.from";
 	public static final String API_PAGINATION_INCREMENT = "api.pagination.incremenet";
+	public static final String API_PAGINATION_CONCURRENT_PAGES = "api.pagination.concurrent.pages";
 
 	public static final String API_PAGINATION_COUNTER = "PAGINATION";
 
@@ -71,13 +81,8 @@ public class RestApiInterface {
 		if (serviceObject == null)
 			Helper.assertFalse("service object is null");
 
-		// set timeout from api config
-		setTimeout();
-
-		// set proxy from api config
-		setProxy();
-
-		// send request and evaluate response
+		// send request and evaluate response. timeout, proxy and https settings are set
+		// per request by RestClientRegistry
 		Response response = evaluate(serviceObject);
 
 		return response;
@@ -149,6 +154,8 @@ public class RestApiInterface {
 	 * reached. OPTION_PAGINATION_STOP_CRITERIA:.results.id - if the list of
 	 * responses on a selected page is 0, that means the page has no results, hence,
 	 * it is the last page
+	 * PAGINATION_CONCURRENT_PAGES:5 in options - number of pages requested
+	 * concurrently. pages are validated in page order. default: api.pagination.concurrent.pages or 1
 	 * 
 	 * @param serviceObject
 	 * @return
@@ -162,6 +169,10 @@ public class RestApiInterface {
 		// set pagination response validation
 		Config.putValue(API_TIMEOUT_PAGINATION_VALIDATION_ENABLED, isValidationTimeout, false);
 
+		// stop criteria validates the page body again. pages are not streamed
+		boolean isStreaming = Config.getBooleanValue(JsonStreamValidator.API_RESPONSE_STREAMING_ENABLED);
+		Config.putValue(JsonStreamValidator.API_RESPONSE_STREAMING_ENABLED, false, false);
+
 		boolean isCriteriaSuccess = false;
 
 		StopWatchHelper watch = StopWatchHelper.start();
@@ -189,8 +200,9 @@ public class RestApiInterface {
 
 		} while (!isCriteriaSuccess && passedTimeInSeconds < maxRetrySeconds);
 
-		// reset pagination timeout
+		// reset pagination timeout And response streaming
 		Config.putValue(API_TIMEOUT_PAGINATION_VALIDATION_ENABLED, false);
+		Config.putValue(JsonStreamValidator.API_RESPONSE_STREAMING_ENABLED, isStreaming, false);
 
 		Helper.assertTrue("expected validation not found in pages.", isCriteriaSuccess);
 
@@ -199,6 +211,11 @@ public class RestApiInterface {
 
 	public static boolean evaluateRequestAndValidatePagination(ServiceObject serviceObject) {
 
+		// request pages concurrently. per page validation timeout requires sequential pages
+		int concurrentPages = Config.getIntValue(API_PAGINATION_CONCURRENT_PAGES);
+		if (concurrentPages > 1 && !Config.getBooleanValue(ServiceManager.SERVICE_TIMEOUT_VALIDATION_ENABLED))
+			return evaluateRequestAndValidatePrefetchedPages(serviceObject, concurrentPages);
+
 		String criteria = Config.getValue(API_PAGINATION_STOP_CRITERIA);
 		int maxPages = Config.getIntValue(API_PAGINATION_MAX_PAGES);
 		int startingPage = Helper.getIntFromString(Config.getValue(API_PAGINATION_PAGES_FROM));
@@ -239,6 +256,163 @@ public class RestApiInterface {
 		return isCriteriaSuccess;
 	}
 
+	/**
+	 * requests a window of pages concurrently And validates the responses in page
+	 * order. page requests are built on the test thread, one at a time, with the
+	 * page number set in config. <@PAGINATION> resolves to the page number in the
+	 * uri, headers, body And template of each request. when a page is validated,
+	 * the next page is requested. once the expected response is found or the stop
+	 * criteria is met, pages in flight are cancelled
+	 * 
+	 * @param serviceObject
+	 * @param concurrentPages number of pages in flight
+	 * @return
+	 */
+	private static boolean evaluateRequestAndValidatePrefetchedPages(ServiceObject serviceObject,
+			int concurrentPages) {
+
+		String criteria = Config.getValue(API_PAGINATION_STOP_CRITERIA);
+		int maxPages = Config.getIntValue(API_PAGINATION_MAX_PAGES);
+		int startingPage = Helper.getIntFromString(Config.getValue(API_PAGINATION_PAGES_FROM));
+		int incrementBy = Math.max(Helper.getIntFromString(Config.getValue(API_PAGINATION_INCREMENT)), 1);
+
+		String uri = serviceObject.getUriPath();
+		String requestBody = serviceObject.getRequestBody();
+		boolean isCriteriaSuccess = false;
+
+		ExecutorService executor = TestExecutors.newTestExecutor(concurrentPages);
+		Deque<PageRequest> pages = new ArrayDeque<PageRequest>();
+		int nextPage = startingPage;
+
+		try {
+			while (true) {
+				// keep window of pages in flight
+				while (pages.size() < concurrentPages && nextPage <= maxPages) {
+					pages.add(sendPageRequest(serviceObject, uri, requestBody, nextPage, executor));
+					nextPage += incrementBy;
+				}
+				if (pages.isEmpty())
+					break;
+
+				PageRequest page = pages.poll();
+				TestLog.logPass("Validating page: " + page.index);
+				Config.putValue(API_PAGINATION_COUNTER, page.index, false);
+
+				// set page request And response, errors are stored at serviceObject.errorMessages
+				List<String> errors = new ArrayList<String>();
+				Response response = page.getResponse(errors);
+				serviceObject.withUriPath(page.uri).withRequest(page.request).withErrorMessages(errors);
+				setResponse(serviceObject, response, page.isAsync);
+				serviceObject.withErrorMessages(validateResponse(serviceObject));
+
+				// error indicates that there are no more results on the page
+				List<String> criteriaErrors = validatePaginationStopCriteria(serviceObject, criteria);
+				if (!criteriaErrors.isEmpty()) {
+					TestLog.logPass("no more results returned at page: " + page.index + " with criteria: " + criteria);
+					break;
+				}
+
+				// if errors (requirements not met), continue with next page
+				if (!serviceObject.getErrorMessages().isEmpty()) {
+					TestLog.logPass(Arrays.toString(serviceObject.getErrorMessages().toArray()));
+				} else {
+					isCriteriaSuccess = true;
+					break;
+				}
+			}
+		} finally {
+			// cancel pages in flight
+			for (PageRequest page : pages)
+				page.cancel();
+			executor.shutdownNow();
+		}
+
+		// reset uri And request body to <@PAGINATION> keyword for next attempt
+		serviceObject.withUriPath(uri).withRequestBody(requestBody);
+		return isCriteriaSuccess;
+	}
+
+	/**
+	 * builds page request on the test thread And sends it without waiting for the
+	 * response. page number is set in config before the request is built, as with
+	 * sequential pages
+	 * 
+	 * @param serviceObject
+	 * @param uri           uri with <@PAGINATION> keyword
+	 * @param requestBody   request body, before parameters are replaced
+	 * @param index         page number
+	 * @param executor      runs blocking requests
+	 * @return
+	 */
+	private static PageRequest sendPageRequest(ServiceObject serviceObject, String uri, String requestBody,
+			int index, ExecutorService executor) {
+		serviceObject.withUriPath(uri).withRequestBody(requestBody);
+		Config.putValue(API_PAGINATION_COUNTER, index, false);
+		RequestSpecification request = setURI(serviceObject);
+		serviceObject.withRequestBody(DataHelper.getRequestBodyIncludingTemplate(serviceObject));
+		request = prepareRequest(serviceObject, request);
+
+		PageRequest page = new PageRequest(index, serviceObject.getUriPath(), request);
+		String method = serviceObject.getMethod();
+		RequestSpecification pageRequest = request;
+		try {
+			if (page.isAsync)
+				page.response = AsyncHttpHelper.sendRequestAsync(serviceObject, request);
+			else
+				page.response = executor.submit(() -> sendRequest(method, pageRequest));
+		} catch (Exception e) {
+			page.error = "request failed for page: " + index + ". " + e.getMessage();
+		}
+		return page;
+	}
+
+	/**
+	 * page request in flight
+	 */
+	private static class PageRequest {
+		private final int index;
+		private final String uri;
+		private final RequestSpecification request;
+		private final boolean isAsync;
+		private Future<Response> response;
+		private String error;
+
+		PageRequest(int index, String uri, RequestSpecification request) {
+			this.index = index;
+			this.uri = uri;
+			this.request = request;
+			this.isAsync = AsyncHttpHelper.isEnabled() && AsyncHttpHelper.isSupported(request);
+		}
+
+		/**
+		 * waits for the page response. adds errors if request failed
+		 * 
+		 * @param errors
+		 * @return null if request failed
+		 */
+		Response getResponse(List<String> errors) {
+			if (response == null) {
+				errors.add(error);
+				return null;
+			}
+			try {
+				return response.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause() == null ? e : e.getCause();
+				errors.add(cause.getMessage());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				errors.add("interrupted while waiting for page: " + index);
+			}
+			return null;
+		}
+
+		void cancel() {
+			if (response != null)
+				response.cancel(true);
+		}
+	}
+
 	/**
 	 * stoppage criteria for api pagination will iterate through pages in api call,
 	 * untill the criteria node size reaches 0 - this indicates that there are no
@@ -343,9 +517,6 @@ public class RestApiInterface {
 	public static RequestSpecification setURI(ServiceObject serviceObject) {
 		String url = StringUtils.EMPTY;
 
-		// set request
-		RequestSpecification request = given();
-
 		// replace place holder values for URI
 		serviceObject.withUriPath(DataHelper.replaceParameters(serviceObject.getUriPath()));
 		serviceObject.withUriPath(Helper.stringRemoveLines(serviceObject.getUriPath()));
@@ -364,16 +535,17 @@ public class RestApiInterface {
 		URL aURL = Helper.convertToUrl(url);
 		TestLog.logPass("request URL: " + aURL.toString());
 
-		request.baseUri(aURL.getProtocol() + "://" + aURL.getHost());
-		request.port(aURL.getPort());
-		request.basePath(aURL.getPath());
-
-		return request;
+		// set request from pooled client for the target
+		return RestClientRegistry.newRequest(aURL);
 	}
 
 	/**
 	 * set connection timeout in milliseconds
+	 * 
+	 * @deprecated sets global rest assured config. requests are configured per
+	 *             target by RestClientRegistry
 	 */
+	@Deprecated
 	public static void setTimeout() {
 		int connectTimeout = Config.getIntValue(ServiceManager.SERVICE_RESPONSE_TIMEOUT_SECONDS);
 		if (connectTimeout == -1)
@@ -390,8 +562,10 @@ public class RestApiInterface {
 	 * set proxy from config file value to use proxy is set at API_AUTO_PROXY_SET We
 	 * evaluate if we need to use proxy once in test run
 	 * 
-	 * @throws Exception
+	 * @deprecated sets global rest assured proxy. requests are configured per
+	 *             target by RestClientRegistry
 	 */
+	@Deprecated
 	public static void setProxy() {
 
 		String host = Config.getValue(TestObject.PROXY_HOST);
@@ -434,6 +608,10 @@ public class RestApiInterface {
 			return errorMessages;
 		}
 
+		// large json responses are read as a stream, values of json paths are kept
+		if (JsonStreamValidator.isStreamingResponse(serviceObject))
+			errorMessages.addAll(JsonStreamValidator.readResponse(serviceObject));
+
 		// saves response values to config object
 		saveOutBoundValues(serviceObject);
 
@@ -628,7 +806,8 @@ public class RestApiInterface {
 
 		// set form data
 		if (serviceObject.getContentType().contains("form")) {
-			request = request.config(RestAssured.config().encoderConfig(io.restassured.config.EncoderConfig
+			RestAssuredConfig config = ((FilterableRequestSpecification) request).getConfig();
+			request = request.config(config.encoderConfig(io.restassured.config.EncoderConfig
 					.encoderConfig().encodeContentTypeAs("multipart/form-data", ContentType.TEXT)));
 
 			String[] formData = serviceObject.getRequestBody().split(",");
@@ -712,6 +891,9 @@ public class RestApiInterface {
 			case OPTION_PAGINATION_INCREMENET:
 				Config.putValue(API_PAGINATION_INCREMENT, keyword.value, false);
 				break;
+			case OPTION_PAGINATION_CONCURRENT_PAGES:
+				Config.putValue(API_PAGINATION_CONCURRENT_PAGES, keyword.value, false);
+				break;
 			default:
 				break;
 			}
@@ -755,6 +937,11 @@ public class RestApiInterface {
 		Config.putValue(API_PAGINATION_MAX_PAGES, 100, false);
 		Config.putValue(API_PAGINATION_PAGES_FROM, 1, false);
 		Config.putValue(API_PAGINATION_INCREMENT, 1, false);
+
+		int defaultConcurrentPages = Config.getGlobalIntValue(API_PAGINATION_CONCURRENT_PAGES);
+		if (defaultConcurrentPages == -1)
+			defaultConcurrentPages = 1;
+		Config.putValue(API_PAGINATION_CONCURRENT_PAGES, defaultConcurrentPages, false);
 	}
 
 	public static ServiceObject evaluateRequest(ServiceObject serviceObject, RequestSpecification request) {
@@ -762,6 +949,35 @@ public class RestApiInterface {
 
 		List<String> errors = new ArrayList<String>();
 
+		// set request headers, query parameters And body
+		request = prepareRequest(serviceObject, request);
+
+		// send with non blocking engine if enabled
+		boolean isAsync = AsyncHttpHelper.isEnabled() && AsyncHttpHelper.isSupported(request);
+
+		try {
+			if (isAsync)
+				response = AsyncHttpHelper.sendRequest(serviceObject, request);
+			else
+				response = sendRequest(serviceObject.getMethod(), request);
+		} catch (Exception e) {
+			errors.add(e.getMessage());
+			serviceObject.withErrorMessages(errors);
+		}
+
+		setResponse(serviceObject, response, isAsync);
+
+		return serviceObject;
+	}
+
+	/**
+	 * sets request headers, query parameters And body
+	 * 
+	 * @param serviceObject
+	 * @param request
+	 * @return
+	 */
+	public static RequestSpecification prepareRequest(ServiceObject serviceObject, RequestSpecification request) {
 		// set request header
 		request = evaluateRequestHeaders(serviceObject, request);
 
@@ -774,50 +990,66 @@ public class RestApiInterface {
 		if(!serviceObject.getRequestBody().isEmpty())
 			TestLog.logPass("request body: " + Helper.stringRemoveLines(serviceObject.getRequestBody()));
 		TestLog.logPass("request type: " + serviceObject.getMethod());
+		return request;
+	}
 
-		try {
-			switch (serviceObject.getMethod()) {
-			case "POST":
-				response = request.when().post();
-				break;
-			case "PUT":
-				response = request.when().put();
-				break;
-			case "PATCH":
-				response = request.when().patch();
-				break;
-			case "DELETE":
-				response = request.when().delete();
-				break;
-			case "GET":
-				response = request.when().get();
-				break;
-			case "OPTIONS":
-				response = request.when().options();
-				break;
-			case "HEAD":
-				response = request.when().head();
-				break;
-			default:
-				Helper.assertTrue("request type not found", false);
-				break;
-			}
-		} catch (Exception e) {
-			errors.add(e.getMessage());
-			serviceObject.withErrorMessages(errors);
-		}
-
+	/**
+	 * logs And stores the response in service object
+	 * 
+	 * @param serviceObject
+	 * @param response
+	 * @param isAsync       response from non blocking engine
+	 */
+	private static void setResponse(ServiceObject serviceObject, Response response, boolean isAsync) {
 		if (response != null) {
 			TestLog.logPass("response code: " + response.getStatusCode() + ". status: " + response.getStatusLine() );
-			TestLog.logPass("response message: " + ServiceObject.normalizeLog(response.getBody().asString()));
-			serviceObject.withResponse(response.then().extract().response());
+
+			// streamed response body is logged as preview at validation
+			if (!JsonStreamValidator.isStreamingResponse(serviceObject, response))
+				TestLog.logPass("response message: " + ServiceObject.normalizeLog(response.getBody().asString()));
+			serviceObject.withResponse(isAsync ? response : response.then().extract().response());
 		} else {
 			TestLog.logPass("response message: " + "null");
 			serviceObject.withResponse(response);			
 		}
-		
+	}
 
-		return serviceObject;
+	/**
+	 * sends request with rest assured
+	 * 
+	 * @param method
+	 * @param request
+	 * @return
+	 */
+	private static Response sendRequest(String method, RequestSpecification request) {
+		Response response = null;
+		switch (method) {
+		case "POST":
+			response = request.when().post();
+			break;
+		case "PUT":
+			response = request.when().put();
+			break;
+		case "PATCH":
+			response = request.when().patch();
+			break;
+		case "DELETE":
+			response = request.when().delete();
+			break;
+		case "GET":
+			response = request.when().get();
+			break;
+		case "OPTIONS":
+			response = request.when().options();
+			break;
+		case "HEAD":
+			response = request.when().head();
+			break;
+		default:
+			Helper.assertTrue("request type not found", false);
+			break;
+		}
+		return response;
 	}
 
 	/**
@@ -7,26 +7,17 @@ import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang.StringUtils;
 
-import com.microsoft.azure.servicebus.ExceptionPhase;
-import com.microsoft.azure.servicebus.IMessage;
-import com.microsoft.azure.servicebus.IMessageHandler;
 import com.microsoft.azure.servicebus.Message;
-import com.microsoft.azure.servicebus.MessageHandlerOptions;
 import com.microsoft.azure.servicebus.QueueClient;
-import com.microsoft.azure.servicebus.ReceiveMode;
-import com.microsoft.azure.servicebus.SubscriptionClient;
 import com.microsoft.azure.servicebus.TopicClient;
-import com.microsoft.azure.servicebus.primitives.ConnectionStringBuilder;
 import com.microsoft.azure.servicebus.primitives.ServiceBusException;
-import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
 
 import core.apiCore.helpers.DataHelper;
 import core.apiCore.helpers.MessageQueueHelper;
+import core.apiCore.helpers.ServiceBusClientRegistry;
 import core.support.configReader.Config;
 import core.support.logger.TestLog;
 import core.support.objects.KeyValue;
-import core.support.objects.MessageObject;
 import core.support.objects.MessageObject.messageType;
 import core.support.objects.ServiceObject;
 import core.support.objects.TestObject;
@@ -34,6 +25,10 @@ import core.support.objects.TestObject;
 /**
  * @author ehsan.matean
  *
+ * clients are shared by all tests, see ServiceBusClientRegistry
+ *
+ * if test.broker.isEnabled is set, messages are sent to And received from
+ * queues And topics of the test broker
  */
 public class ServiceBusInterface {
 
@@ -45,9 +40,6 @@ public class ServiceBusInterface {
 	public static final String SERVICEBUS_HOST = "servicebus.host";
 	public static final String SERVICEBUS_MESSAGE_ID_PREFIX = "servicebus.msgId.prefix";
 
-	public static Connection connection = null;
-	public static Channel channel;
-
 	/**
 	 * interface for database calls
 	 * 
@@ -86,21 +78,24 @@ public class ServiceBusInterface {
 			throws InterruptedException, ServiceBusException {
 		TestLog.ConsoleLog("rabbitMq request body: " + serviceObject.getRequestBody());
 
-		// Create a QueueClient instance and then asynchronously send messages.
-		// Close the sender once the send operation is complete.
+		// get shared client And asynchronously send messages.
+		// clients are closed when the suite finishes
 
 		String connectionString = Config.getValue(SERVICEBUS_CONNECTION_STR);
 		String topic = Config.getValue(SERVICEBUS_TOPIC);
 		String queue = Config.getValue(SERVICEBUS_QUEUE);
 
-		QueueClient sendQueueClient = new QueueClient(new ConnectionStringBuilder(connectionString, queue),
-				ReceiveMode.PEEKLOCK);
-		TopicClient sendClient = new TopicClient(new ConnectionStringBuilder(connectionString, topic));
-
-		if (!queue.isEmpty())
-			sendMessagesAsync(serviceObject, messageId, sendClient).thenRunAsync(() -> sendQueueClient.closeAsync());
+		if (TestBrokerInterface.isEnabled()) {
+			boolean isOutboundTopic = isOutboundTopic();
+			TestBrokerInterface.sendMessage(serviceObject, messageId, messageType.SERVICEBUS,
+					queue.isEmpty() ? topic : queue, queue.isEmpty(), getOutboundName(isOutboundTopic),
+					isOutboundTopic, 1);
+		} else if (!queue.isEmpty())
+			sendQeueMessagesAsync(serviceObject, messageId,
+					ServiceBusClientRegistry.getQueueClient(connectionString, queue));
 		else if (!topic.isEmpty())
-			sendMessagesAsync(serviceObject, messageId, sendClient).thenRunAsync(() -> sendClient.closeAsync());
+			sendMessagesAsync(serviceObject, messageId,
+					ServiceBusClientRegistry.getTopicClient(connectionString, topic));
 	}
 
 	@SuppressWarnings("rawtypes")
@@ -200,72 +195,63 @@ public class ServiceBusInterface {
 	}
 
 	/**
-	 * close connection
+	 * close clients
 	 */
 	public static void closeConnection() {
-		try {
-			channel.close();
-			connection.close();
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		ServiceBusClientRegistry.shutdown();
 	}
 
 	/**
-	 * gets message from outbound queue Adds messages to ouboutMessage hashmap
+	 * starts receiving messages from outbound subscription, if not started.
+	 * received messages are added to outboundMessages as they arrive
 	 * 
-	 * @param receiver
-	 * @return
 	 * @throws Exception
 	 */
 	public static void getOutboundMessages() throws Exception {
+		if (TestBrokerInterface.isEnabled()) {
+			boolean isOutboundTopic = isOutboundTopic();
+			TestBrokerInterface.getOutboundMessages(getOutboundName(isOutboundTopic), isOutboundTopic);
+			return;
+		}
+
 		String connectionString = Config.getValue(SERVICEBUS_CONNECTION_STR);
 		String topic = Config.getValue(SERVICEBUS_TOPIC);
 		String outboundTopic = Config.getValue(SERVICEBUS_OUTBOUND_TOPIC);
 		String host = Config.getValue(SERVICEBUS_HOST);
 
+		int concurrency = Config.getIntValue(ServiceBusClientRegistry.SERVICEBUS_HANDLER_CONCURRENCY);
+		if (concurrency < 1)
+			concurrency = ServiceBusClientRegistry.DEFAULT_HANDLER_CONCURRENCY;
+		int prefetch = Config.getIntValue(ServiceBusClientRegistry.SERVICEBUS_PREFETCH);
+		if (prefetch < 0)
+			prefetch = ServiceBusClientRegistry.DEFAULT_PREFETCH;
+
 		// set outbound topic if defined
 		if (!outboundTopic.isEmpty())
 			topic = outboundTopic;
 
 		String entityPath = topic + "/subscriptions/" + host;
-		SubscriptionClient subscription1Client = new SubscriptionClient(
-				new ConnectionStringBuilder(connectionString, entityPath), ReceiveMode.PEEKLOCK);
-
-		registerMessageHandlerOnClient(subscription1Client);
+		ServiceBusClientRegistry.startSubscription(connectionString, entityPath, concurrency, prefetch);
 	}
 
-	@SuppressWarnings("deprecation")
-	static void registerMessageHandlerOnClient(SubscriptionClient receiveClient) throws Exception {
-
-		// register the RegisterMessageHandler callback
-		IMessageHandler messageHandler = new IMessageHandler() {
-			// callback invoked when the message handler loop has obtained a message
-			public CompletableFuture<Void> onMessageAsync(IMessage message) {
-
-				MessageObject messageObject = new MessageObject().withMessageType(messageType.SERVICEBUS)
-						.withMessageId(message.getMessageId()).withCorrelationId(message.getCorrelationId())
-						.withMessage(message.getMessageBody().getValueData().toString()).withLabel(message.getLabel());
-
-				TestLog.logPass("Received messageId '" + message.getMessageId() + "\n with message content: "
-						+ message.getMessageBody().getValueData());
-				MessageObject.outboundMessages.put(messageObject, true);
-
-				return receiveClient.completeAsync(message.getLockToken());
-			}
-
-			@Override
-			public void notifyException(Throwable throwable, ExceptionPhase exceptionPhase) {
-				System.out.printf(exceptionPhase + "-" + throwable.getMessage());
-			}
-
-		};
-
-		receiveClient.registerMessageHandler(messageHandler,
-				// callback invoked when the message handler has an exception to report
-				// 1 concurrent call, messages are auto-completed, auto-renew duration
-				new MessageHandlerOptions(1, false, Duration.ofMinutes(1)));
-
+	/**
+	 * test broker receives from outbound topic, outbound queue, topic or queue,
+	 * the first one defined
+	 * 
+	 * @return
+	 */
+	private static boolean isOutboundTopic() {
+		if (!Config.getValue(SERVICEBUS_OUTBOUND_TOPIC).isEmpty())
+			return true;
+		if (!Config.getValue(SERVICEBUS_OUTBOUND_QUEUE).isEmpty())
+			return false;
+		return !Config.getValue(SERVICEBUS_TOPIC).isEmpty();
 	}
 
-}
\ No newline at end of file
+	private static String getOutboundName(boolean isOutboundTopic) {
+		String outboundName = Config.getValue(isOutboundTopic ? SERVICEBUS_OUTBOUND_TOPIC : SERVICEBUS_OUTBOUND_QUEUE);
+		if (!outboundName.isEmpty())
+			return outboundName;
+		return Config.getValue(isOutboundTopic ? SERVICEBUS_TOPIC : SERVICEBUS_QUEUE);
+	}
+}
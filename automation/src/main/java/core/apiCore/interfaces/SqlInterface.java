@@ -1,6 +1,5 @@
 package core.apiCore.interfaces;
 
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -13,9 +12,11 @@ import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang.StringUtils;
 
 import core.apiCore.ServiceManager;
-import core.apiCore.helpers.ConnectionHelper;
 import core.apiCore.helpers.DataHelper;
+import core.apiCore.helpers.SqlConnectionPool;
+import core.apiCore.helpers.SqlConnectionPool.PooledConnection;
 import core.apiCore.helpers.SqlHelper;
+import core.apiCore.helpers.SqlResult;
 import core.helpers.Helper;
 import core.helpers.StopWatchHelper;
 import core.support.configReader.Config;
@@ -29,6 +30,15 @@ import core.uiCore.driverProperties.globalProperties.CrossPlatformProperties;
 /**
  * @author ehsan.matean
  *
+ * each row borrows a connection from the pool of the current database, see
+ * SqlConnectionPool
+ *
+ * queries waiting for rows are re-run with increasing delay, doubled per
+ * attempt up to max delay
+ *
+ * config:
+ * sql.requery.delayMillis: delay before first re-run. default: 250
+ * sql.requery.maxDelayMillis: max delay between re-runs. default: 5000
  */
 public class SqlInterface {
 
@@ -36,6 +46,12 @@ public class SqlInterface {
 
 	public static final String SQL_CURRENT_DATABASE = "db.current.database";
 
+	public static final String SQL_REQUERY_DELAY_MILLIS = "sql.requery.delayMillis";
+	public static final String SQL_REQUERY_MAX_DELAY_MILLIS = "sql.requery.maxDelayMillis";
+
+	private static final int DEFAULT_REQUERY_DELAY_MILLIS = 250;
+	private static final int DEFAULT_REQUERY_MAX_DELAY_MILLIS = 5000;
+
 	private static final String OPTION_DATABASE = "database";
 
 	/**
@@ -43,7 +59,7 @@ public class SqlInterface {
 	 * interface for database calls
 	 * 
 	 * @param serviceObject
-	 * @return
+	 * @return result set of the last query. closed when connection is returned
 	 * @throws Exception
 	 */
 	public static ResultSet DataBaseInterface(ServiceObject serviceObject) throws Exception {
@@ -57,54 +73,34 @@ public class SqlInterface {
 		// evaluate options
 		evaluateOption(serviceObject);
 
-		// connect to db
-		connectDB();
-
-		// evaluate the response
-		ResultSet resSet = evaluateRequestAndValidateResponse(serviceObject);
+		// borrow connection for the row. connection is returned to the pool when done
+		try (PooledConnection connection = connectDB()) {
 
-		return resSet;
+			// evaluate the response
+			return evaluateRequestAndValidateResponse(serviceObject, connection);
+		}
 	}
 
 	/**
-	 * connect to database based on the current database
+	 * borrow connection from the pool of the current database. pool is created
+	 * on first use
+	 * 
+	 * @return connection, returned to the pool when closed
 	 */
-	public synchronized static void connectDB() {
+	public static PooledConnection connectDB() {
 
 		DatabaseObject currentDb = (DatabaseObject) Config.getObjectValue(SQL_CURRENT_DATABASE);
 
-		if (currentDb.getConnection() == null) {
-			try {
-
-				// connect through ssh if set in api config
-				ConnectionHelper.sshConnect();
-
-				// Register JDBC driver
-				String SQLDriver = currentDb.getDriver();
-				Class.forName(SQLDriver);
-
-				// connect to db
-				String dbURL = currentDb.getUrl();
-				String dbName = currentDb.getDatabaseName();
-
-				// set database connection info
-				String connectionString = dbURL + "/" + dbName;
-				String dbUserName = currentDb.getUsername();
-				String dbPassword = currentDb.getPassword();
-				TestLog.logPass("db connection: " + connectionString);
-				TestLog.logPass("db username: " + dbUserName);
-				TestLog.logPass("db password: " + dbPassword);
-
-				// conn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/testdb",
-				// "postgres", "123");
-				currentDb.withConnection(DriverManager.getConnection(connectionString, dbUserName, dbPassword));
-				Helper.wait.waitForSeconds(1);
-			} catch (Exception e) {
-				TestLog.logPass("sql connection failed: " + e.getMessage());
-				e.printStackTrace();
-				Helper.assertTrue("sql connection failed", false);
-			}
+		PooledConnection connection = null;
+		try {
+			connection = SqlConnectionPool.borrow(currentDb);
+		} catch (Exception e) {
+			TestLog.logPass("sql connection failed: " + e.getMessage());
+			e.printStackTrace();
+			Helper.assertTrue("sql connection failed", false);
 		}
+
+		return connection;
 	}
 
 	public static void evaluateOption(ServiceObject serviceObject) {
@@ -244,6 +240,18 @@ public class SqlInterface {
 		case "password":
 			database.withPassword(value);
 			break;
+		case "poolSize":
+			database.withPoolSize(Integer.valueOf(value));
+			break;
+		case "statementCacheSize":
+			database.withStatementCacheSize(Integer.valueOf(value));
+			break;
+		case "streaming":
+			database.withStreaming(Boolean.parseBoolean(value));
+			break;
+		case "fetchSize":
+			database.withFetchSize(Integer.valueOf(value));
+			break;
 		default:
 
 		}
@@ -255,10 +263,12 @@ public class SqlInterface {
 	 * evaluaes the sql statement
 	 * 
 	 * @param serviceObject
+	 * @param connection    borrowed connection of the row
 	 * @return
 	 * @throws Exception
 	 */
-	public static ResultSet evaluateDbQuery(ServiceObject serviceObject) throws Exception {
+	public static ResultSet evaluateDbQuery(ServiceObject serviceObject, PooledConnection connection)
+			throws Exception {
 
 		// replace parameters for request body, including template file (json, xml, or
 		// other)
@@ -268,14 +278,15 @@ public class SqlInterface {
 		String sql = serviceObject.getRequestBody();
 		TestLog.logPass("sql statement: " + sql);
 
+		// cached statement of the borrowed connection
 		DatabaseObject currentDb = (DatabaseObject) Config.getObjectValue(SQL_CURRENT_DATABASE);
-		PreparedStatement sqlStmt = currentDb.getConnection().prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE,
-				ResultSet.CONCUR_UPDATABLE);
+		PreparedStatement sqlStmt = connection.prepareStatement(sql, currentDb.isStreaming(),
+				currentDb.getFetchSize());
 
 		// execute And wait for response if expected values are set
 		ResultSet resSet = null;
 		try {
-			resSet = executeAndWaitForDbResponse(sqlStmt, serviceObject);
+			resSet = executeAndWaitForDbResponse(sqlStmt, connection, serviceObject);
 		} catch (Exception e) {
 			e.printStackTrace();
 			Helper.assertFalse(e.getMessage());
@@ -288,7 +299,7 @@ public class SqlInterface {
 	 * evaluate the response
 	 * 
 	 * @param serviceObject
-	 * @param resSet
+	 * @param resSet        positioned at first row, null if no rows returned
 	 * @throws Exception
 	 */
 	public static List<String> evaluateReponse(ServiceObject serviceObject, ResultSet resSet) throws Exception {
@@ -300,12 +311,13 @@ public class SqlInterface {
 			return errorMessages;
 
 		// fail test if no results returned
-		if (!resSet.isBeforeFirst()) {
+		if (resSet == null) {
 			Helper.assertTrue("no results returned from db query", false);
 		}
 
-		// get the first result row
-		resSet.next();
+		// forward only result set: requested values are read in one pass
+		if (resSet.getType() == ResultSet.TYPE_FORWARD_ONLY)
+			return evaluateStreamedResponse(serviceObject, resSet);
 
 		// saves response values to config object
 		SqlHelper.saveOutboundSQLParameters(resSet, serviceObject.getOutputParams());
@@ -320,39 +332,120 @@ public class SqlInterface {
 		return errorMessages;
 	}
 
+	/**
+	 * evaluate forward only result set. values required by output parameters And
+	 * expected response are read in one pass, Then validated
+	 * 
+	 * requested columns are taken from the expected response before reading.
+	 * expected response parameters are replaced after output parameters are
+	 * saved, as in the non streamed path, so they may reference values of the
+	 * same query
+	 * 
+	 * @param serviceObject
+	 * @param resSet        positioned at first row
+	 * @return
+	 * @throws Exception
+	 */
+	private static List<String> evaluateStreamedResponse(ServiceObject serviceObject, ResultSet resSet)
+			throws Exception {
+		List<KeyValue> outputKeywords = SqlHelper.getSqlOutputKeywords(serviceObject.getOutputParams());
+
+		String requested = DataHelper.replaceParameters(serviceObject.getExpectedResponse());
+		String[] criteria = requested.isEmpty() ? new String[0] : requested.split("&&");
+
+		// request values before reading rows
+		SqlResult result = new SqlResult();
+		SqlHelper.requestSqlKeyValues(result, outputKeywords);
+		boolean isKeywordCriteria = false;
+		for (String criterion : criteria) {
+			if (SqlHelper.isValidJson(criterion))
+				SqlHelper.requestJsonBody(result, criterion);
+			else
+				isKeywordCriteria = true;
+		}
+		if (isKeywordCriteria)
+			SqlHelper.requestSqlKeywords(result, DataHelper.getValidationMap(requested));
+
+		result.read(resSet);
+		resSet.close();
+
+		// saves response values to config object
+		SqlHelper.configMapSqlKeyValues(result, outputKeywords);
+
+		// expected response may reference saved values
+		String expected = DataHelper.replaceParameters(serviceObject.getExpectedResponse());
+		criteria = expected.isEmpty() ? new String[0] : expected.split("&&");
+		List<KeyValue> expectedKeywords = DataHelper.getValidationMap(expected);
+
+		List<String> errorMessages = new ArrayList<String>();
+		if (!expected.isEmpty())
+			TestLog.logPass("expected result: " + Helper.stringRemoveLines(expected));
+		for (String criterion : criteria) {
+			if (SqlHelper.isValidJson(criterion))
+				SqlHelper.validateByJsonBody(criterion, result);
+			else
+				errorMessages.addAll(SqlHelper.validateSqlKeywords(expectedKeywords, result));
+		}
+
+		// remove all empty response strings
+		return DataHelper.removeEmptyElements(errorMessages);
+	}
+
 	/**
 	 * executes And waits for response calls the query in each loop does not wait if
-	 * expected or partial expected response are empty
+	 * expected or partial expected response are empty. query is re-run with
+	 * increasing delay. streaming transaction is committed before each run, so
+	 * new rows are seen And the previous cursor is released
+	 * 
+	 * rows are detected with next(), as forward only result sets may not support
+	 * isBeforeFirst
 	 * 
 	 * @param sqlStmt
+	 * @param connection    borrowed connection of the statement
 	 * @param serviceObject
-	 * @return
+	 * @return result set positioned at first row, null if no rows returned
 	 * @throws SQLException
 	 */
-	public static ResultSet executeAndWaitForDbResponse(PreparedStatement sqlStmt, ServiceObject serviceObject)
-			throws SQLException {
+	public static ResultSet executeAndWaitForDbResponse(PreparedStatement sqlStmt, PooledConnection connection,
+			ServiceObject serviceObject) throws SQLException {
 		int timeout = CrossPlatformProperties.getGlobalTimeout();
+		int delayMillis = getIntValue(SQL_REQUERY_DELAY_MILLIS, DEFAULT_REQUERY_DELAY_MILLIS);
+		int maxDelayMillis = getIntValue(SQL_REQUERY_MAX_DELAY_MILLIS, DEFAULT_REQUERY_MAX_DELAY_MILLIS);
 		ResultSet resSet;
 		StopWatchHelper watch = StopWatchHelper.start();
 		boolean messageReceived = false;
 		long passedTimeInSeconds = 0;
 		do {
+			// end streaming transaction of the previous run, including runs of
+			// validation retries, so the query sees rows committed since
+			connection.commit();
 			sqlStmt.execute();
 			resSet = sqlStmt.getResultSet();
 
-			// if no response expected, do not wait for response
-			if (serviceObject.getExpectedResponse().isEmpty())
-				return resSet;
-
-			if (resSet.isBeforeFirst()) {
+			// first row is read. result set stays on it
+			if (resSet != null && resSet.next()) {
 				messageReceived = true;
 				return resSet;
 			}
-			Helper.wait.waitForSeconds(1);
+
+			// if no response expected, do not wait for response
+			if (serviceObject.getExpectedResponse().isEmpty())
+				return null;
+
+			// wait no longer than the remaining time
+			long remainingMillis = TimeUnit.SECONDS.toMillis(timeout) - watch.time(TimeUnit.MILLISECONDS);
+			Helper.waitForSeconds(Math.max(Math.min(delayMillis, remainingMillis), 0) / 1000.0);
+			delayMillis = Math.min(delayMillis * 2, maxDelayMillis);
+
 			passedTimeInSeconds = watch.time(TimeUnit.SECONDS);
 		} while (!messageReceived && passedTimeInSeconds < timeout);
 
-		return resSet;
+		return null;
+	}
+
+	private static int getIntValue(String key, int defaultValue) {
+		int value = Config.getIntValue(key);
+		return value < 0 ? defaultValue : value;
 	}
 
 	public static List<String> validateExpectedResponse(String expected, ResultSet resSet) throws SQLException {
@@ -385,10 +478,12 @@ public class SqlInterface {
 	 * in seconds
 	 * 
 	 * @param serviceObject
+	 * @param connection    borrowed connection of the row
 	 * @return
 	 * @throws Exception
 	 */
-	public static ResultSet evaluateRequestAndValidateResponse(ServiceObject serviceObject) throws Exception {
+	public static ResultSet evaluateRequestAndValidateResponse(ServiceObject serviceObject,
+			PooledConnection connection) throws Exception {
 		List<String> errorMessages = new ArrayList<String>();
 		ResultSet resSet = null;
 
@@ -402,7 +497,7 @@ public class SqlInterface {
 		do {
 
 			// evaluate the sql query
-			resSet = evaluateDbQuery(serviceObject);
+			resSet = evaluateDbQuery(serviceObject, connection);
 
 			// evaluate the response
 			errorMessages = evaluateReponse(serviceObject, resSet);
@@ -0,0 +1,292 @@
+package core.apiCore.interfaces;
+
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+
+import core.apiCore.helpers.DataHelper;
+import core.apiCore.helpers.MessageQueueHelper;
+import core.apiCore.helpers.TestBroker;
+import core.apiCore.helpers.TestBroker.ReplyRule;
+import core.helpers.Helper;
+import core.support.configReader.Config;
+import core.support.logger.TestLog;
+import core.support.objects.KeyValue;
+import core.support.objects.MessageObject;
+import core.support.objects.MessageObject.messageType;
+import core.support.objects.ServiceObject;
+
+/**
+ * message queue interface for the in process test broker. runs message queue
+ * csv tests without external broker
+ *
+ * messages are sent to queue or topic. if outbound queue or topic is set,
+ * messages are replied to on the outbound destination, reply_count times, with
+ * reply_body (tokens: {messageId}, {body}) And the message id as correlation
+ * id. else messages are received from the destination they are sent to
+ *
+ * options: queue, topic, outbound_queue, outbound_topic, reply_count,
+ * reply_body, reply_correlation (true/false), message_count,
+ * response_identifier
+ *
+ * if test.broker.isEnabled is set, the test broker stands in for kafka,
+ * rabbitMq And service bus. their tests send to And receive from the test
+ * broker, with their own option keys for destinations. if the receive
+ * destination differs from the send destination, messages are replied to on
+ * the receive destination, with the global test.broker.reply.* values
+ *
+ * config:
+ * test.broker.isEnabled: run kafka, rabbitMq And service bus tests on the test broker. default: false
+ */
+public class TestBrokerInterface {
+
+	public static final String TEST_BROKER_QUEUE = "test.broker.queue";
+	public static final String TEST_BROKER_TOPIC = "test.broker.topic";
+	public static final String TEST_BROKER_OUTBOUND_QUEUE = "test.broker.outbound.queue";
+	public static final String TEST_BROKER_OUTBOUND_TOPIC = "test.broker.outbound.topic";
+	public static final String TEST_BROKER_REPLY_COUNT = "test.broker.reply.count";
+	public static final String TEST_BROKER_REPLY_BODY = "test.broker.reply.body";
+	public static final String TEST_BROKER_REPLY_CORRELATION = "test.broker.reply.correlation";
+	public static final String TEST_BROKER_MESSAGE_COUNT = "test.broker.message.count";
+	public static final String TEST_BROKER_MESSAGE_ID_PREFIX = "test.broker.msgId.prefix";
+	public static final String TEST_BROKER_ENABLED = "test.broker.isEnabled";
+
+	private static final String DEFAULT_QUEUE = "test";
+
+	/**
+	 * interface for in process test broker
+	 *
+	 * @param serviceObject
+	 * @throws Exception
+	 */
+	public static void testBrokerInterface(ServiceObject serviceObject) throws Exception {
+
+		// evaluate additional options
+		evaluateOption(serviceObject);
+
+		// replace parameters for request body, including template file (json, xml, or
+		// other)
+		serviceObject.withRequestBody(DataHelper.getRequestBodyIncludingTemplate(serviceObject));
+
+		// generate message id
+		String messageId = MessageQueueHelper.generateMessageId(serviceObject,
+				Config.getValue(TEST_BROKER_MESSAGE_ID_PREFIX));
+
+		// topics drop messages without subscription. outbound consumer is started before sending
+		getOutboundMessages();
+
+		// send message
+		sendTestBrokerMessage(serviceObject, messageId);
+
+		// receive messages
+		MessageQueueHelper.receiveAndValidateMessages(serviceObject, messageId, messageType.TEST);
+	}
+
+	/**
+	 * send message to test broker queue or topic. message is sent message_count
+	 * times, with the same message id
+	 *
+	 * @param serviceObject
+	 * @param messageId
+	 * @throws InterruptedException
+	 */
+	public static void sendTestBrokerMessage(ServiceObject serviceObject, String messageId)
+			throws InterruptedException {
+
+		// return if request is empty
+		if (serviceObject.getRequestBody().isEmpty())
+			return;
+
+		String topic = Config.getValue(TEST_BROKER_TOPIC);
+		boolean isTopic = !topic.isEmpty();
+		String name = isTopic ? topic : getQueue();
+		ReplyRule rule = getReplyRule();
+		int messageCount = Math.max(Config.getIntValue(TEST_BROKER_MESSAGE_COUNT), 1);
+
+		for (int i = 0; i < messageCount; i++) {
+			MessageObject message = new MessageObject().withMessageType(messageType.TEST).withMessageId(messageId)
+					.withCorrelationId(messageId).withMessage(serviceObject.getRequestBody()).withTopic(name);
+			TestBroker.publish(name, isTopic, message, rule);
+		}
+
+		TestLog.logPass("sent messageId : " + messageId + "\n message : " + serviceObject.getRequestBody()
+				+ (messageCount > 1 ? "\n message count: " + messageCount : ""));
+	}
+
+	/**
+	 * starts consumer for outbound queue or topic, if not started. outbound
+	 * destination is the destination messages are sent to, if not set
+	 */
+	public static void getOutboundMessages() {
+		String outboundTopic = Config.getValue(TEST_BROKER_OUTBOUND_TOPIC);
+		String outboundQueue = Config.getValue(TEST_BROKER_OUTBOUND_QUEUE);
+		String topic = Config.getValue(TEST_BROKER_TOPIC);
+
+		if (!outboundTopic.isEmpty())
+			TestBroker.startConsumer(outboundTopic, true);
+		else if (!outboundQueue.isEmpty())
+			TestBroker.startConsumer(outboundQueue, false);
+		else if (!topic.isEmpty())
+			TestBroker.startConsumer(topic, true);
+		else
+			TestBroker.startConsumer(getQueue(), false);
+	}
+
+	/**
+	 * returns true if kafka, rabbitMq And service bus tests run on the test broker
+	 *
+	 * @return
+	 */
+	public static boolean isEnabled() {
+		return Config.getBooleanValue(TEST_BROKER_ENABLED);
+	}
+
+	/**
+	 * sends message of a kafka, rabbitMq or service bus test to the test broker.
+	 * consumer of the receive destination is started before sending. message is
+	 * replied to on the receive destination if it differs from the destination
+	 *
+	 * @param serviceObject
+	 * @param messageId
+	 * @param type           message type of the interface
+	 * @param name           queue or topic messages are sent to
+	 * @param isTopic
+	 * @param receiveName    queue or topic messages are received from
+	 * @param isReceiveTopic
+	 * @param messageCount
+	 * @throws InterruptedException
+	 */
+	public static void sendMessage(ServiceObject serviceObject, String messageId, messageType type, String name,
+			boolean isTopic, String receiveName, boolean isReceiveTopic, int messageCount)
+			throws InterruptedException {
+
+		// topics drop messages without subscription
+		getOutboundMessages(receiveName, isReceiveTopic);
+
+		ReplyRule rule = null;
+		if (!receiveName.equals(name) || isReceiveTopic != isTopic) {
+			int replyCount = Helper.getIntFromString(Config.getGlobalValue(TEST_BROKER_REPLY_COUNT));
+			String replyCorrelation = Config.getGlobalValue(TEST_BROKER_REPLY_CORRELATION);
+			rule = new ReplyRule(receiveName, isReceiveTopic, replyCount <= 0 ? 1 : replyCount,
+					Config.getGlobalValue(TEST_BROKER_REPLY_BODY),
+					replyCorrelation.isEmpty() || Boolean.parseBoolean(replyCorrelation));
+		}
+
+		for (int i = 0; i < Math.max(messageCount, 1); i++) {
+			MessageObject message = new MessageObject().withMessageType(type).withMessageId(messageId)
+					.withCorrelationId(messageId).withMessage(serviceObject.getRequestBody()).withTopic(name);
+			TestBroker.publish(name, isTopic, message, rule);
+		}
+
+		TestLog.logPass("sent to test broker messageId : " + messageId + "\n message : "
+				+ serviceObject.getRequestBody() + (messageCount > 1 ? "\n message count: " + messageCount : ""));
+	}
+
+	/**
+	 * starts consumer of a kafka, rabbitMq or service bus receive destination on
+	 * the test broker, if not started
+	 *
+	 * @param receiveName
+	 * @param isReceiveTopic
+	 */
+	public static void getOutboundMessages(String receiveName, boolean isReceiveTopic) {
+		TestBroker.startConsumer(receiveName, isReceiveTopic);
+	}
+
+	/**
+	 * reply rule, if outbound destination is set
+	 *
+	 * @return reply rule, or null
+	 */
+	private static ReplyRule getReplyRule() {
+		String outboundTopic = Config.getValue(TEST_BROKER_OUTBOUND_TOPIC);
+		String outboundQueue = Config.getValue(TEST_BROKER_OUTBOUND_QUEUE);
+		if (outboundTopic.isEmpty() && outboundQueue.isEmpty())
+			return null;
+
+		boolean isOutboundTopic = !outboundTopic.isEmpty();
+		int replyCount = Config.getIntValue(TEST_BROKER_REPLY_COUNT);
+		if (replyCount < 0)
+			replyCount = 1;
+		String replyCorrelation = Config.getValue(TEST_BROKER_REPLY_CORRELATION);
+		boolean isCorrelated = replyCorrelation.isEmpty() || Boolean.parseBoolean(replyCorrelation);
+
+		return new ReplyRule(isOutboundTopic ? outboundTopic : outboundQueue, isOutboundTopic, replyCount,
+				Config.getValue(TEST_BROKER_REPLY_BODY), isCorrelated);
+	}
+
+	private static String getQueue() {
+		String queue = Config.getValue(TEST_BROKER_QUEUE);
+		return queue.isEmpty() ? DEFAULT_QUEUE : queue;
+	}
+
+	public static void evaluateOption(ServiceObject serviceObject) {
+
+		// set default queue and topic values. will be overwritten if values are set
+		// in csv
+		resetOptions();
+
+		// if no option specified
+		if (serviceObject.getOption().isEmpty()) {
+			return;
+		}
+
+		// replace parameters for options
+		serviceObject.withOption(DataHelper.replaceParameters(serviceObject.getOption()));
+
+		// get key value mapping of header parameters
+		List<KeyValue> keywords = DataHelper.getValidationMap(serviceObject.getOption());
+
+		// iterate through key value pairs for headers, separated by ";"
+		for (KeyValue keyword : keywords) {
+
+			// if additional options
+			switch (keyword.key.toLowerCase()) {
+
+			case "queue":
+				Config.putValue(TEST_BROKER_QUEUE, keyword.value, false);
+				break;
+			case "topic":
+				Config.putValue(TEST_BROKER_TOPIC, keyword.value, false);
+				break;
+			case "outbound_queue":
+				Config.putValue(TEST_BROKER_OUTBOUND_QUEUE, keyword.value, false);
+				break;
+			case "outbound_topic":
+				Config.putValue(TEST_BROKER_OUTBOUND_TOPIC, keyword.value, false);
+				break;
+			case "reply_count":
+				Config.putValue(TEST_BROKER_REPLY_COUNT, keyword.value, false);
+				break;
+			case "reply_body":
+				Config.putValue(TEST_BROKER_REPLY_BODY, keyword.value, false);
+				break;
+			case "reply_correlation":
+				Config.putValue(TEST_BROKER_REPLY_CORRELATION, keyword.value, false);
+				break;
+			case "message_count":
+				Config.putValue(TEST_BROKER_MESSAGE_COUNT, keyword.value, false);
+				break;
+			case "response_identifier":
+				Config.putValue(MessageQueueHelper.RESPONSE_IDENTIFIER, keyword.value, false);
+				break;
+			default:
+				break;
+			}
+		}
+
+		KeyValue.printKeyValue(keywords, "option");
+	}
+
+	/**
+	 * set default queue, topic And reply values
+	 */
+	private static void resetOptions() {
+		String[] keys = { TEST_BROKER_QUEUE, TEST_BROKER_TOPIC, TEST_BROKER_OUTBOUND_QUEUE,
+				TEST_BROKER_OUTBOUND_TOPIC, TEST_BROKER_REPLY_COUNT, TEST_BROKER_REPLY_BODY,
+				TEST_BROKER_REPLY_CORRELATION, TEST_BROKER_MESSAGE_COUNT };
+		for (String key : keys)
+			Config.putValue(key, Config.getGlobalValue(key), false);
+		Config.putValue(MessageQueueHelper.RESPONSE_IDENTIFIER, StringUtils.EMPTY, false);
+	}
+}
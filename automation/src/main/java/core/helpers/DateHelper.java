@@ -1,5 +1,6 @@
 package core.helpers;
 
+import java.text.ParsePosition;
 import java.time.DayOfWeek;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -12,14 +13,32 @@ import java.time.temporal.WeekFields;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.reflections8.util.Joiner;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import core.support.objects.DateFormats;
 
 public class DateHelper {
 	
+	private static final int MAX_LEARNED_SHAPES = 1024;
+	
+	// no date format matches strings of the shape
+	private static final String NO_FORMAT = StringUtils.EMPTY;
+
+	// compiled date formats. key: format. empty for formats not supported by DateTimeFormatter
+	private static final Map<String, Optional<DateTimeFormatter>> formatters = new ConcurrentHashMap<String, Optional<DateTimeFormatter>>();
+	
+	// date format that parsed the last string of the same shape. key: shape, eg. 0000-00-00T00:00:00.000Z
+	private static final Cache<String, String> learnedFormats = CacheBuilder.newBuilder()
+			.maximumSize(MAX_LEARNED_SHAPES).build();
+	
 	// get time in milliseconds
 	public String getTimestampMiliseconds() {
 		return getTime("yyyyMMddHHmmssSSSSS");
@@ -342,6 +361,9 @@ public class DateHelper {
 	
 	/**
 	 * get local date time from date string
+	 * date formats are tried in order of DateFormats.dateFormats. the matching format is 
+	 * kept for the shape of the string, eg. 0000-00-00T00:00:00Z, And tried first for 
+	 * strings of the same shape
 	 * @param timeString
 	 * @return
 	 */
@@ -349,16 +371,34 @@ public class DateHelper {
 
 		LocalDateTime dateTime = null;
 		timeString = timeString.trim();
+		String shape = getShape(timeString);
 		
-		// for date formats
-		for(String format : DateFormats.dateFormats) {
-			try {
-				DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-				dateTime = LocalDateTime.parse(timeString.trim(), formatter);
+		// format of previous string with the same shape
+		String learnedFormat = learnedFormats.getIfPresent(shape);
+		if(learnedFormat != null && !learnedFormat.equals(NO_FORMAT)) {
+			dateTime = parseLocalDateTime(timeString, learnedFormat);
+			if(dateTime != null)
 				return dateTime;
-			}catch(Exception e) {
-				e.getMessage();
+		}
+		
+		// for date formats
+		if(learnedFormat == null || !learnedFormat.equals(NO_FORMAT)) {
+			boolean isFormatMatched = false;
+			for(String format : DateFormats.dateFormats) {
+				if(!isMatchingFormat(timeString, format))
+					continue;
+				isFormatMatched = true;
+				dateTime = parseMatchingFormat(timeString, format);
+				if(dateTime != null) {
+					learnedFormats.put(shape, format);
+					return dateTime;
+				}
 			}
+			
+			// no format for the shape. strings matching a format may have invalid values, eg. 2020-02-30, 
+			// so the shape is kept open for valid strings
+			if(learnedFormat == null && !isFormatMatched)
+				learnedFormats.put(shape, NO_FORMAT);
 		}
 		
 		// for epoch time for seconds and milliseconds
@@ -380,6 +420,85 @@ public class DateHelper {
 	}
 	
 	
+	/**
+	 * parses date string with format
+	 * string is matched against the format before parsing, so non matching formats do not throw exceptions
+	 * @param timeString
+	 * @param format
+	 * @return null if string does not match format
+	 */
+	private LocalDateTime parseLocalDateTime(String timeString, String format) {
+		if(!isMatchingFormat(timeString, format))
+			return null;
+		return parseMatchingFormat(timeString, format);
+	}
+	
+	/**
+	 * parses date string matching the format
+	 * @param timeString
+	 * @param format
+	 * @return null if field values are invalid, eg. month 13
+	 */
+	private LocalDateTime parseMatchingFormat(String timeString, String format) {
+		try {
+			return LocalDateTime.parse(timeString, getFormatter(format));
+		}catch(Exception e) {
+			e.getMessage();
+		}
+		return null;
+	}
+	
+	/**
+	 * returns true if string matches the format, without validating field values. eg. 2020-02-30 matches yyyy-MM-dd
+	 * @param timeString
+	 * @param format
+	 * @return
+	 */
+	private boolean isMatchingFormat(String timeString, String format) {
+		DateTimeFormatter formatter = getFormatter(format);
+		if(formatter == null)
+			return false;
+		
+		ParsePosition position = new ParsePosition(0);
+		return formatter.parseUnresolved(timeString, position) != null && position.getIndex() == timeString.length();
+	}
+	
+	/**
+	 * compiled date format. formats are compiled once
+	 * @param format
+	 * @return null if format is not supported
+	 */
+	private DateTimeFormatter getFormatter(String format) {
+		Optional<DateTimeFormatter> formatter = formatters.get(format);
+		if(formatter == null) {
+			try {
+				formatter = Optional.of(DateTimeFormatter.ofPattern(format));
+			}catch(Exception e) {
+				formatter = Optional.empty();
+			}
+			formatters.put(format, formatter);
+		}
+		return formatter.orElse(null);
+	}
+	
+	/**
+	 * shape of date string. digits are replaced with 0, letters other than T And Z with a
+	 * eg. 2020-04-05T03:49:53.879Z becomes 0000-00-00T00:00:00.000Z
+	 * @param timeString
+	 * @return
+	 */
+	private String getShape(String timeString) {
+		char[] shape = timeString.toCharArray();
+		for(int i = 0; i < shape.length; i++) {
+			char value = shape[i];
+			if(Character.isDigit(value))
+				shape[i] = '0';
+			else if(Character.isLetter(value) && value != 'T' && value != 'Z')
+				shape[i] = 'a';
+		}
+		return new String(shape);
+	}
+	
 	/**
 	 * reorders time zone and format 
 	 * zone and format will come at the end
@@ -0,0 +1,179 @@
+package core.helpers;
+
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import core.support.configReader.Config;
+import core.support.logger.TestLog;
+import core.support.objects.TestObject;
+
+/**
+ * proxy auto detection results per host, used when proxy.enabled is set to auto
+ *
+ * the first request to a host probes the host once without proxy, Then with
+ * proxy. concurrent requests to the same host wait for the same probe. results
+ * are cached per host. expired results are returned while the host is probed
+ * again in the background, so requests do not wait for the probe. hosts not
+ * reachable with or without proxy are cached for a shorter time
+ *
+ * config:
+ * proxy.auto.ttlSeconds: time to keep detection result per host. default: 600
+ * proxy.auto.negativeTtlSeconds: time to keep result for unreachable hosts. default: 60
+ */
+public class ProxyDetectionCache {
+
+	public static final String PROXY_AUTO_TTL_SECONDS = "proxy.auto.ttlSeconds";
+	public static final String PROXY_AUTO_NEGATIVE_TTL_SECONDS = "proxy.auto.negativeTtlSeconds";
+
+	private static final int DEFAULT_TTL_SECONDS = 600;
+	private static final int DEFAULT_NEGATIVE_TTL_SECONDS = 60;
+
+	enum DETECTION {
+		DIRECT, PROXY, UNREACHABLE
+	}
+
+	// key: protocol://host:port
+	private static final Map<String, HostEntry> hosts = new ConcurrentHashMap<String, HostEntry>();
+
+	private static final ExecutorService refreshExecutor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "proxy-detection");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * is proxy required for url host. host is probed on first call, or in the
+	 * background when the cached result expires
+	 *
+	 * @param url
+	 * @return
+	 */
+	public static boolean isProxyRequired(URL url) {
+		if (url == null)
+			return false;
+
+		// config is read on the test thread. background probes have no test context
+		ProbeSettings settings = new ProbeSettings();
+		HostEntry entry = hosts.computeIfAbsent(getKey(url), value -> new HostEntry());
+		return entry.getDetection(url, settings).equals(DETECTION.PROXY);
+	}
+
+	/**
+	 * clears detection results. hosts are probed again on next request
+	 */
+	public static void clear() {
+		hosts.clear();
+	}
+
+	private static String getKey(URL url) {
+		int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+		return url.getProtocol() + "://" + url.getHost().toLowerCase() + ":" + port;
+	}
+
+	/**
+	 * probes url without proxy, Then with proxy
+	 *
+	 * @param url
+	 * @param settings
+	 * @return
+	 */
+	private static DETECTION detect(URL url, ProbeSettings settings) {
+		// direct connection if connection can be established without proxy
+		if (UtilityHelper.isUrlAbleToConnect(url, null))
+			return DETECTION.DIRECT;
+
+		if (settings.host.isEmpty() || settings.port == -1)
+			return DETECTION.UNREACHABLE;
+
+		// set username/password for proxy authenticator
+		if (!settings.username.isEmpty() && !settings.password.isEmpty()) {
+			Authenticator.setDefault(new Authenticator() {
+				@Override
+				public PasswordAuthentication getPasswordAuthentication() {
+					return new PasswordAuthentication(settings.username, settings.password.toCharArray());
+				}
+			});
+		}
+
+		Proxy proxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress(settings.host, settings.port));
+		if (UtilityHelper.isUrlAbleToConnect(url, proxy))
+			return DETECTION.PROXY;
+		return DETECTION.UNREACHABLE;
+	}
+
+	/**
+	 * proxy config And cache ttl, read from the test config
+	 */
+	private static class ProbeSettings {
+		private final String host = Config.getValue(TestObject.PROXY_HOST);
+		private final int port = Config.getIntValue(TestObject.PROXY_PORT);
+		private final String username = Config.getValue(TestObject.PROXY_USER);
+		private final String password = Config.getValue(TestObject.PROXY_PASS);
+		private final int ttlSeconds = getSeconds(PROXY_AUTO_TTL_SECONDS, DEFAULT_TTL_SECONDS);
+		private final int negativeTtlSeconds = getSeconds(PROXY_AUTO_NEGATIVE_TTL_SECONDS,
+				DEFAULT_NEGATIVE_TTL_SECONDS);
+
+		private static int getSeconds(String key, int defaultValue) {
+			int value = Config.getIntValue(key);
+			return value < 0 ? defaultValue : value;
+		}
+	}
+
+	/**
+	 * detection result for a host
+	 */
+	private static class HostEntry {
+		private volatile DETECTION detection;
+		private volatile long expiresAtNanos;
+		private final AtomicBoolean isRefreshing = new AtomicBoolean(false);
+
+		DETECTION getDetection(URL url, ProbeSettings settings) {
+			DETECTION current = detection;
+
+			// first request to host. other requests to the host wait for the probe
+			if (current == null) {
+				synchronized (this) {
+					if (detection == null)
+						update(url, settings);
+					return detection;
+				}
+			}
+
+			// expired: probe in the background, use current result until updated
+			if (System.nanoTime() - expiresAtNanos >= 0 && isRefreshing.compareAndSet(false, true)) {
+				refreshExecutor.execute(() -> {
+					try {
+						update(url, settings);
+					} finally {
+						isRefreshing.set(false);
+					}
+				});
+			}
+			return current;
+		}
+
+		private void update(URL url, ProbeSettings settings) {
+			DETECTION result = detect(url, settings);
+			int ttlSeconds = result.equals(DETECTION.UNREACHABLE) ? settings.negativeTtlSeconds : settings.ttlSeconds;
+			expiresAtNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds);
+
+			if (!result.equals(detection)) {
+				if (result.equals(DETECTION.PROXY))
+					TestLog.ConsoleLog("proxy detected for host: " + url.getHost() + ", switching proxy on, host: "
+							+ settings.host + " port: " + settings.port);
+				else
+					TestLog.ConsoleLog("proxy auto detect: proxy not detected for host: " + url.getHost());
+			}
+			detection = result;
+		}
+	}
+}
@@ -14,11 +14,8 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
-import java.net.Authenticator;
 import java.net.HttpURLConnection;
-import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
-import java.net.PasswordAuthentication;
 import java.net.Proxy;
 import java.net.URL;
 import java.nio.file.Files;
@@ -1247,7 +1244,7 @@ public class UtilityHelper {
 	/**
 	 * get proxy state from proxy enabled config
 	 * values: true, false, auto
-	 * if auto is set, then through proxy detection, we set value to true or false
+	 * if auto is set, then proxy detection result for the url host is used. see ProxyDetectionCache
 	 * @param url
 	 * @return
 	 */
@@ -1278,66 +1275,20 @@ public class UtilityHelper {
 	/**
 	 * checks if proxy is required first attempt without proxy, second with proxy,
 	 * checking the validity of the proxy connection
+	 * results are cached per host, proxy.enabled stays auto, so hosts with different proxy needs
+	 * are detected separately
 	 * 
 	 * @param source
 	 * @return
 	 */
 	public static boolean setProxyAutoDetection(URL source) {
-
-		Proxy proxy = null;
-
-		String PROXY_ENABLED = TestObject.PROXY_ENABLED;
-		String PROXY_HOST = TestObject.PROXY_HOST;
-		String PROXY_PORT = TestObject.PROXY_PORT;
-		String PROXY_USERNAME = TestObject.PROXY_USER;
-		String PROXY_PASSWORD = TestObject.PROXY_PASS;
-
-		String host = Config.getValue(PROXY_HOST);
-		int port = Config.getIntValue(PROXY_PORT);
-		String username = Config.getValue(PROXY_USERNAME);
-		String password = Config.getValue(PROXY_PASSWORD);
 		String proxyState = Config.getValue(TestObject.PROXY_ENABLED);
-		boolean isProxyAutoDetect = false;
-
-		if(proxyState.equals("auto"))
-			isProxyAutoDetect = true;
 		
-		// return if auto detect proxy is disabled or already set
-		if (!isProxyAutoDetect)
+		// return if auto detect proxy is disabled
+		if (!proxyState.equals("auto"))
 			return false;
 		
-		// return false if connection can be established without proxy
-		boolean isValidConnection = isUrlAbleToConnect(source, null);
-		if (isValidConnection) {
-			Config.setGlobalValue(PROXY_ENABLED, false);
-			TestLog.ConsoleLog("proxy auto detect: proxy not detected");
-			return false;
-		}
-
-		// set username/password for proxy authenticator
-		if (!username.isEmpty() && !password.isEmpty()) {
-			Authenticator.setDefault(new Authenticator() {
-				@Override
-				public PasswordAuthentication getPasswordAuthentication() {
-					return new PasswordAuthentication(username, password.toCharArray());
-				}
-			});
-		}
-
-		// set and download through proxy if enabled
-		if (!host.isEmpty() && port != -1)
-			proxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress(host, port));
-
-		isValidConnection = isUrlAbleToConnect(source, proxy);
-
-		// if connection was established using proxy, then return true
-		if (isValidConnection) {
-			TestLog.ConsoleLog("proxy detected, switching proxy on, host: " + host + " port: " + port);
-			Config.setGlobalValue(PROXY_ENABLED, true);
-			return true;
-		} else
-			Config.setGlobalValue(PROXY_ENABLED, false);
-		return false;
+		return ProxyDetectionCache.isProxyRequired(source);
 	}
 	
 	public static String getMavenArtifactId() {
@@ -100,6 +100,7 @@ public class ServiceRunner {
 
 		bw.append("import core.support.logger.TestLog;" + "\n");
 		bw.append("import core.apiCore.helpers.CsvReader;" + "\n");
+		bw.append("import core.apiCore.helpers.CsvRowScheduler;" + "\n");
 		bw.newLine();
 		bw.append("import java.util.HashMap;" + "\n");
 		bw.append("import java.util.List;" + "\n");
@@ -138,20 +139,38 @@ public class ServiceRunner {
 		 * TemplateFile, RequestBody, OutputParams, RespCodeExp, ExpectedResponse,
 		 * TcComments, tcName, tcIndex, testType);
 		 * 
+		 * // wait for csv rows this row depends on
+		 * CsvRowScheduler.awaitDependencies(objects);
+		 * 
 		 * ServiceManager.setupParentObject(serviceObject);
 		 * 
+		 * // evaluate options, if rows run sequentially
+		 * if (!CsvRowScheduler.hasRowConfig(objects))
+		 * ServiceManager.evaluateOption(serviceObject);
+		 * 
 		 * // set test base override ServiceManager.setTestBaseOverride(serviceObject);
 		 * 
 		 * // run before each test file ServiceManager.runBeforeCsv(serviceObject);
 		 * 
 		 * // setup api driver new AbstractDriverTestNG().setupApiDriver(serviceObject);
-		 * runInterface(serviceObject);
+		 * 
+		 * // row config, if rows run in parallel CsvRowScheduler.setRowConfig(objects);
+		 * 
+		 * // evaluate options in the row config
+		 * if (CsvRowScheduler.hasRowConfig(objects))
+		 * ServiceManager.evaluateOption(serviceObject);
+		 * 
+		 * // run row, on a virtual thread if enabled
+		 * CsvRowScheduler.runRow(() -> runServiceTests(serviceObject));
 		 * 
 		 * // run after each test file ServiceManager.runAfterCsv(serviceObject); }
 		 */
 
 		bw.append("public static void TestRunner(Object objects) throws Exception {"+ " \n");
 		bw.newLine();
+		bw.append("		// wait for csv rows this row depends on. rows run in parallel if enabled" + " \n");
+		bw.append("		CsvRowScheduler.awaitDependencies(objects);" + " \n");
+		bw.newLine();
 		bw.append("		// add parameters to ServiceObject" + " \n");
 		bw.append("		Object[] objectArray = (Object[]) objects;" + " \n");
 		bw.append("		ServiceObject serviceObject = new ServiceObject().setServiceObject(objectArray);" + " \n");
@@ -159,8 +178,9 @@ public class ServiceRunner {
 		bw.append("		// set parent object" + " \n");
 		bw.append("		ServiceManager.setupParentObject(serviceObject);" + " \n");
 		bw.newLine();
-		bw.append("		// evaluate options" + " \n");
-		bw.append("		ServiceManager.evaluateOption(serviceObject);" + " \n");
+		bw.append("		// evaluate options. rows with row config evaluate options in the row config" + " \n");
+		bw.append("		if (!CsvRowScheduler.hasRowConfig(objects))" + " \n");
+		bw.append("			ServiceManager.evaluateOption(serviceObject);" + " \n");
 		bw.newLine();
 		bw.append("		// set test base override" + " \n");
 		bw.append("		ServiceManager.setTestBaseOverride(serviceObject);" + " \n");
@@ -170,7 +190,14 @@ public class ServiceRunner {
 		bw.newLine();
 		bw.append("		// setup api driver" + " \n");
 		bw.append("		new AbstractDriverTestNG().setupApiDriver(serviceObject);" + " \n");
-		bw.append("		runServiceTests(serviceObject);" + " \n");
+		bw.newLine();
+		bw.append("		// row config, if rows run in parallel. options are set in the row config" + " \n");
+		bw.append("		CsvRowScheduler.setRowConfig(objects);" + " \n");
+		bw.append("		if (CsvRowScheduler.hasRowConfig(objects))" + " \n");
+		bw.append("			ServiceManager.evaluateOption(serviceObject);" + " \n");
+		bw.newLine();
+		bw.append("		// run row, on a virtual thread if enabled" + " \n");
+		bw.append("		CsvRowScheduler.runRow(() -> runServiceTests(serviceObject));" + " \n");
 		bw.newLine();
 		bw.append("		// run after each test file" + " \n");
 		bw.append("		ServiceManager.runAfterCsv(serviceObject);" + " \n");
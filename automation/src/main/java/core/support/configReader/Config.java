@@ -34,6 +34,9 @@ public class Config {
 
 	public static String RESOURCE_PATH = PropertiesReader.getLocalResourcePath();
 
+	// config and profile property values. loaded once per suite, root scope of all test object configs
+	private static ConfigScope propertiesScope = null;
+
 	/**
 	 * gets property value based on key from maven or properties file order: maven
 	 * Then properties
@@ -99,13 +102,34 @@ public class Config {
 
 	/**
 	 * loads config And properties files to TestObject config map
+	 * property values are loaded once. test object config is a child scope of the property values
 	 * 
 	 * @param testId id of the test
 	 */
 	public static void loadConfig(String testId) {
 
-		Map<String, Object> config = loadConfigProperties();
-		TestObject.getTestInfo(testId).config.putAll(config);
+		TestObject.getTestInfo(testId).config = getPropertiesScope().createChild();
+	}
+	
+	/**
+	 * gets config scope with property values from config and profile files
+	 * loaded once per suite
+	 * 
+	 * @return
+	 */
+	public static synchronized ConfigScope getPropertiesScope() {
+		if (propertiesScope == null)
+			propertiesScope = new ConfigScope(loadConfigProperties());
+		return propertiesScope;
+	}
+
+	/**
+	 * clears property values. config And profile files are loaded again, with
+	 * duplicate key check, by the next test object. called at suite start, so
+	 * file changes are seen by later suites in the same jvm
+	 */
+	public static synchronized void resetPropertiesScope() {
+		propertiesScope = null;
 	}
 
 	/**
@@ -539,6 +563,26 @@ public class Config {
 
 	}
 
+	/**
+	 * puts output parameter value in config. eg. <$variable> if the test has its
+	 * own config scope (csv rows running in parallel), value is set in parent
+	 * config as well, so following tests in the csv file can read it
+	 *
+	 * @param key
+	 * @param value
+	 * @param isLog
+	 */
+	public static void putOutputValue(String key, Object value, boolean isLog) {
+		putValue(key, value, isLog);
+
+		ServiceObject service = TestObject.getTestInfo().serviceObject;
+		if (service == null || !TestObject.isTestObjectSet(service.getParent()))
+			return;
+		Map<String, Object> config = TestObject.getTestInfo().config;
+		if (TestObject.getParentTestInfo(service).config != config)
+			setParentValue(key, config.get(key));
+	}
+
 	/**
 	 * set global config value
 	 * 
@@ -0,0 +1,190 @@
+package core.support.configReader;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * layered config map used by test objects
+ *
+ * lookups go from child scope to parent scope. writes And removals stay in the
+ * local scope, parent scopes are not modified. creating a child scope is O(1),
+ * no values are copied
+ *
+ * scope hierarchy: properties (loaded once per suite) -> before suite -> before
+ * class -> test method. service tests: properties -> csv file (parent) object,
+ * shared by all tests in the csv file
+ *
+ * note: child scopes are a live view of the parent, not a copy. test objects
+ * created by TestObject.inheritParent see values written to the parent after
+ * they are created, unless the key is set in the child scope
+ */
+public class ConfigScope extends AbstractMap<String, Object> {
+
+	// marks keys removed in local scope, hiding the parent value
+	private static final Object REMOVED = new Object();
+
+	private final ConfigScope parent;
+	private final Map<String, Object> values = new ConcurrentHashMap<String, Object>();
+
+	public ConfigScope() {
+		this.parent = null;
+	}
+
+	/**
+	 * root scope with initial values
+	 *
+	 * @param values
+	 */
+	public ConfigScope(Map<String, ? extends Object> values) {
+		this.parent = null;
+		this.values.putAll(values);
+	}
+
+	private ConfigScope(ConfigScope parent) {
+		this.parent = parent;
+	}
+
+	/**
+	 * creates child scope. lookups fall through to this scope, writes stay in the
+	 * child
+	 *
+	 * @return
+	 */
+	public ConfigScope createChild() {
+		return new ConfigScope(this);
+	}
+
+	/**
+	 * creates child scope of config map. if config is not a scope, values are
+	 * copied into a new root scope
+	 *
+	 * @param config
+	 * @return
+	 */
+	public static ConfigScope createChild(Map<String, Object> config) {
+		if (config instanceof ConfigScope)
+			return ((ConfigScope) config).createChild();
+		return new ConfigScope(config).createChild();
+	}
+
+	public ConfigScope getParent() {
+		return parent;
+	}
+
+	/**
+	 * returns true if key is set in this scope, not including parent scopes
+	 *
+	 * @param key
+	 * @return
+	 */
+	public boolean isLocal(String key) {
+		Object value = values.get(key);
+		return value != null && value != REMOVED;
+	}
+
+	/**
+	 * values set in this scope, not including parent scopes
+	 *
+	 * @return
+	 */
+	public Map<String, Object> getLocalValues() {
+		Map<String, Object> localValues = new LinkedHashMap<String, Object>();
+		for (Entry<String, Object> entry : values.entrySet()) {
+			if (entry.getValue() != REMOVED)
+				localValues.put(entry.getKey(), entry.getValue());
+		}
+		return localValues;
+	}
+
+	@Override
+	public Object get(Object key) {
+		ConfigScope scope = this;
+		while (scope != null) {
+			Object value = scope.values.get(key);
+			if (value != null)
+				return value == REMOVED ? null : value;
+			scope = scope.parent;
+		}
+		return null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		if (value == null)
+			throw new NullPointerException("config value is null for key: " + key);
+		Object previous = get(key);
+		values.put(key, value);
+		return previous;
+	}
+
+	@Override
+	public Object remove(Object key) {
+		Object previous = get(key);
+		if (previous == null)
+			return null;
+
+		// hide parent value if set
+		if (parent != null && parent.get(key) != null)
+			values.put((String) key, REMOVED);
+		else
+			values.remove(key);
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		values.clear();
+		if (parent == null)
+			return;
+		for (String key : parent.keySet())
+			values.put(key, REMOVED);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		boolean hasRemoved = false;
+		for (Object value : values.values()) {
+			if (value != REMOVED)
+				return false;
+			hasRemoved = true;
+		}
+		if (parent == null)
+			return true;
+		if (!hasRemoved)
+			return parent.isEmpty();
+		return entrySet().isEmpty();
+	}
+
+	/**
+	 * merged view of all scopes, child values override parent values. snapshot at
+	 * time of call, read only
+	 */
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		List<ConfigScope> scopes = new ArrayList<ConfigScope>();
+		for (ConfigScope scope = this; scope != null; scope = scope.parent)
+			scopes.add(scope);
+
+		Map<String, Object> merged = new LinkedHashMap<String, Object>();
+		for (int i = scopes.size() - 1; i >= 0; i--) {
+			for (Entry<String, Object> entry : scopes.get(i).values.entrySet()) {
+				if (entry.getValue() == REMOVED)
+					merged.remove(entry.getKey());
+				else
+					merged.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return Collections.unmodifiableMap(merged).entrySet();
+	}
+}
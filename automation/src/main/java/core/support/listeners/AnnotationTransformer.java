@@ -7,10 +7,12 @@ import java.util.ArrayList;
 
 import org.testng.IAnnotationTransformer;
 import org.testng.IRetryAnalyzer;
+import org.testng.annotations.IDataProviderAnnotation;
 import org.testng.annotations.ITestAnnotation;
 
 import core.apiCore.TestDataProvider;
 import core.apiCore.helpers.CsvReader;
+import core.apiCore.helpers.CsvRowScheduler;
 import core.helpers.Helper;
 import core.support.configReader.Config;
 import core.support.objects.TestObject;
@@ -27,6 +29,7 @@ import core.uiCore.driverProperties.globalProperties.CrossPlatformProperties;
 public class AnnotationTransformer implements IAnnotationTransformer {
 	public static final String THREAD_COUNT = "global.parallel_test_count";
 	public static final String API_TEST_RUNNER_PREFIX = "serviceRunner";
+	public static final String API_DATA_PROVIDER = "parallelRun";
 
 	@SuppressWarnings("deprecation")
 	@Override
@@ -50,6 +53,16 @@ public class AnnotationTransformer implements IAnnotationTransformer {
 					"invocation count is 0. if this is a ApiRunner test, please add csv file to api test case folder");
 	}
 
+	/**
+	 * runs rows of a csv file in parallel if service.csv.row.parallel.isEnabled is
+	 * set. row dependencies are resolved by CsvRowScheduler
+	 */
+	@Override
+	public void transform(IDataProviderAnnotation annotation, Method method) {
+		if (annotation.getName().equals(API_DATA_PROVIDER) && CsvRowScheduler.isEnabled())
+			annotation.setParallel(true);
+	}
+
 	/**
 	 * sets thread count And invocation count for api test runner
 	 * 
@@ -20,6 +20,19 @@ import com.google.common.base.Joiner;
 
 import core.apiCore.ServiceManager;
 import core.apiCore.driver.ApiTestDriver;
+import core.apiCore.helpers.AsyncHttpHelper;
+import core.apiCore.helpers.ConnectionHelper;
+import core.apiCore.helpers.CsvRowScheduler;
+import core.apiCore.helpers.CsvTestPlan;
+import core.apiCore.helpers.KafkaOutboundConsumer;
+import core.apiCore.helpers.KafkaProducerRegistry;
+import core.apiCore.helpers.KeywordRegistry;
+import core.apiCore.helpers.RabbitMqOutboundConsumer;
+import core.apiCore.helpers.RestClientRegistry;
+import core.apiCore.helpers.SqlConnectionPool;
+import core.apiCore.helpers.TestBroker;
+import core.apiCore.interfaces.RabbitMqInterface;
+import core.apiCore.interfaces.ServiceBusInterface;
 import core.helpers.Helper;
 import core.helpers.ScreenRecorderHelper;
 import core.support.configReader.Config;
@@ -28,6 +41,7 @@ import core.support.logger.TestLog;
 import core.support.objects.DeviceManager;
 import core.support.objects.DriverObject;
 import core.support.objects.TestObject;
+import core.support.runner.TestExecutors;
 import core.uiCore.driverProperties.driverType.DriverType;
 import core.uiCore.driverProperties.globalProperties.CrossPlatformProperties;
 import core.uiCore.drivers.AbstractDriverTestNG;
@@ -94,7 +108,7 @@ public class TestListener implements ITestListener, IClassListener, ISuiteListen
 		iTestContext.getCurrentXmlTest().setThreadCount(threadCount);
 
 		// set parallel thread count for data provider tests, not including service
-		// tests
+		// tests. csv rows running in parallel are bounded per csv file by CsvRowScheduler
 		iTestContext.getCurrentXmlTest().getSuite().setDataProviderThreadCount(threadCount);
 		iTestContext.getCurrentXmlTest().getSuite().setPreserveOrder(true);
 	}
@@ -198,6 +212,12 @@ public class TestListener implements ITestListener, IClassListener, ISuiteListen
 		
 		TestLog.Then("Test is finished successfully");
 		TestLog.printBatchLogsToConsole();
+		
+		// release per thread state of the test
+		ServiceManager.clearThreadState();
+
+		// start csv rows depending on this test
+		CsvRowScheduler.complete(iTestResult.getParameters());
 	}
 
 	@Override
@@ -235,6 +255,12 @@ public class TestListener implements ITestListener, IClassListener, ISuiteListen
 		
 		// quit current driver after failure
 		Helper.quitCurrentDriver();
+		
+		// release per thread state of the test
+		ServiceManager.clearThreadState();
+
+		// start csv rows depending on this test
+		CsvRowScheduler.complete(iTestResult.getParameters());
 	}
 
 	@Override
@@ -258,6 +284,13 @@ public class TestListener implements ITestListener, IClassListener, ISuiteListen
 		
 		// quit current driver after failure
 		Helper.quitCurrentDriver();
+		
+		// release per thread state of the test
+		ServiceManager.clearThreadState();
+
+		// start csv rows depending on this test. retried tests complete on the last run
+		if (!iTestResult.wasRetried())
+			CsvRowScheduler.complete(iTestResult.getParameters());
 	}
 
 	@Override
@@ -349,6 +382,8 @@ public class TestListener implements ITestListener, IClassListener, ISuiteListen
 	@Override
 	public void onStart(ISuite suite) {
 		
+		// property files are loaded again for each suite in the same jvm
+		Config.resetPropertiesScope();
 		
 		TestLog.setupLog4j();
 
@@ -365,6 +400,9 @@ public class TestListener implements ITestListener, IClassListener, ISuiteListen
 		TestObject.APP_IDENTIFIER = getTestPackage(suite);
 		TestObject.SUITE_NAME = suitename;
 
+		// keywords are loaded again for each suite in the same jvm
+		KeywordRegistry.reset();
+
 		// setup before suite driver
 		DriverObject driver = new DriverObject().withDriverType(DriverType.API);
 		new AbstractDriverTestNG().setupWebDriver(TestObject.SUITE_NAME + TestObject.BEFORE_SUITE_PREFIX, driver);
@@ -419,6 +457,34 @@ public class TestListener implements ITestListener, IClassListener, ISuiteListen
 		if (isServiceSuite(suite))
 			ServiceManager.runServiceAfterSuite();
 
+		// csv files are listed And parsed again by the next suite in the same jvm
+		CsvTestPlan.reset();
+
+		// close http clients
+		AsyncHttpHelper.shutdown();
+		RestClientRegistry.shutdown();
+
+		// close kafka producers And consumers
+		KafkaProducerRegistry.shutdown();
+		KafkaOutboundConsumer.shutdown();
+
+		// close rabbitMq consumers And connection
+		RabbitMqOutboundConsumer.shutdown();
+		RabbitMqInterface.closeConnection();
+
+		// close service bus clients
+		ServiceBusInterface.closeConnection();
+
+		// stop test broker consumers
+		TestBroker.shutdown();
+
+		// stop virtual thread executor of service csv rows
+		TestExecutors.shutdown();
+
+		// close idle sql connections And ssh tunnels
+		SqlConnectionPool.shutdown();
+		ConnectionHelper.closeTunnels();
+
 		// print list of missing config variables
 		Config.printMissingConfigVariables();
 	}
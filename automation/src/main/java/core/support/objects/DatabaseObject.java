@@ -1,30 +1,31 @@
 package core.support.objects;
 
-import java.sql.Connection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 
+import core.apiCore.helpers.SqlConnectionPool;
+
 public class DatabaseObject {
 
 	public enum driverOptions {
-		driver, url, name, username, password
+		driver, url, name, username, password, poolSize, statementCacheSize, streaming, fetchSize
 	}
 
-	public Connection connection = null;
 	public String driver = StringUtils.EMPTY;
 	public String url = StringUtils.EMPTY;
 	public String databaseName = StringUtils.EMPTY;
 	public String username = StringUtils.EMPTY;
 	public String password = StringUtils.EMPTY;
+	public int poolSize = SqlConnectionPool.DEFAULT_POOL_SIZE;
+	public int statementCacheSize = SqlConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE;
 
-	public static Map<Integer, DatabaseObject> DATABASES = new ConcurrentHashMap<Integer, DatabaseObject>();
+	// read only, forward only result sets, fetched in batches of fetch size
+	public boolean isStreaming = false;
+	public int fetchSize = SqlConnectionPool.DEFAULT_FETCH_SIZE;
 
-	public DatabaseObject withConnection(Connection connection) {
-		this.connection = connection;
-		return this;
-	}
+	public static Map<Integer, DatabaseObject> DATABASES = new ConcurrentHashMap<Integer, DatabaseObject>();
 
 	public DatabaseObject withDriver(String driver) {
 		this.driver = driver;
@@ -51,8 +52,24 @@ public class DatabaseObject {
 		return this;
 	}
 
-	public Connection getConnection() {
-		return this.connection;
+	public DatabaseObject withPoolSize(int poolSize) {
+		this.poolSize = poolSize;
+		return this;
+	}
+
+	public DatabaseObject withStatementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+		return this;
+	}
+
+	public DatabaseObject withStreaming(boolean isStreaming) {
+		this.isStreaming = isStreaming;
+		return this;
+	}
+
+	public DatabaseObject withFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+		return this;
 	}
 
 	public String getDriver() {
@@ -74,4 +91,20 @@ public class DatabaseObject {
 	public String getPassword() {
 		return this.password;
 	}
+
+	public int getPoolSize() {
+		return this.poolSize;
+	}
+
+	public int getStatementCacheSize() {
+		return this.statementCacheSize;
+	}
+
+	public boolean isStreaming() {
+		return this.isStreaming;
+	}
+
+	public int getFetchSize() {
+		return this.fetchSize;
+	}
 }
\ No newline at end of file
@@ -3,7 +3,6 @@ package core.support.objects;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 
@@ -23,7 +22,22 @@ public class MessageObject {
 	public boolean isLogged = false;
 
 
-	public static Map<MessageObject, Boolean> outboundMessages = new ConcurrentHashMap<MessageObject, Boolean>();
+	public static OutboundMessageStore outboundMessages = new OutboundMessageStore();
+
+	/**
+	 * @deprecated outboundMessages is an OutboundMessageStore. use
+	 *             outboundMessages.getMessages()
+	 * 
+	 * received outbound messages And availability, as previously stored in
+	 * outboundMessages. false if message was claimed by a test. returns a
+	 * snapshot, changes are not written to the store
+	 * 
+	 * @return
+	 */
+	@Deprecated
+	public static Map<MessageObject, Boolean> getOutboundMessageMap() {
+		return outboundMessages.getMessages();
+	}
 
 	public MessageObject withMessageType(messageType messageType) {
 		this.messageType = messageType;
@@ -0,0 +1,363 @@
+package core.support.objects;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+
+import core.support.configReader.Config;
+
+/**
+ * received outbound messages, shared by all tests
+ *
+ * messages are indexed by message id, correlation id And the generated id
+ * (uuid) within them. messages matching response identifiers are found by
+ * scanning messages received since the last scan for the same identifiers. a
+ * message is claimed by one test only. oldest messages are evicted when the
+ * store is full or when messages expire
+ *
+ * tests waiting for messages register a waiter. waiters are notified when a
+ * matching message is added, so tests do not poll the store
+ *
+ * migration: message ids with a generated id match received message ids And
+ * correlation ids containing the generated id, as before. other message ids
+ * used to match received ids containing them anywhere. they now match
+ * received ids equal to, or starting with, the message id. csv tests relying
+ * on substring matches, eg. a message id matching the end of the received id,
+ * should set the full id or its start, or use the response_identifier option
+ *
+ * config:
+ * message.store.maxSize: max messages kept. default: 100000
+ * message.store.ttlSeconds: time to keep received messages. default: 3600
+ */
+public class OutboundMessageStore {
+
+	public static final String MESSAGE_STORE_MAX_SIZE = "message.store.maxSize";
+	public static final String MESSAGE_STORE_TTL_SECONDS = "message.store.ttlSeconds";
+
+	private static final int DEFAULT_MAX_SIZE = 100000;
+	private static final int DEFAULT_TTL_SECONDS = 3600;
+	private static final int MAX_IDENTIFIER_CURSORS = 1024;
+
+	// generated message id. see MessageQueueHelper.generateMessageId
+	private static final Pattern GENERATED_ID = Pattern
+			.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+	// key: sequence, in order of arrival
+	private final ConcurrentSkipListMap<Long, StoredMessage> messages = new ConcurrentSkipListMap<Long, StoredMessage>();
+
+	// key: message id, correlation id And generated ids within them
+	private final ConcurrentSkipListMap<String, Set<StoredMessage>> ids = new ConcurrentSkipListMap<String, Set<StoredMessage>>();
+
+	// last scanned sequence per response identifiers
+	private final Map<String, Long> identifierCursors = new ConcurrentHashMap<String, Long>();
+
+	// waiters for message ids with generated id. key: generated id
+	private final Map<String, Set<MessageWaiter>> idWaiters = new ConcurrentHashMap<String, Set<MessageWaiter>>();
+
+	// waiters for response identifiers or other message ids
+	private final Set<MessageWaiter> otherWaiters = ConcurrentHashMap.newKeySet();
+
+	private long sequence = 0;
+	private volatile int size = 0;
+
+	// messages up to the sequence are visible to lookups
+	private volatile long lastAdded = 0;
+
+	/**
+	 * adds received message. oldest messages are evicted if store is full or
+	 * messages are expired
+	 *
+	 * @param message
+	 */
+	public synchronized void add(MessageObject message) {
+		StoredMessage stored = new StoredMessage(++sequence, message);
+		messages.put(stored.sequence, stored);
+		for (String key : stored.keys)
+			ids.computeIfAbsent(key, value -> ConcurrentHashMap.newKeySet()).add(stored);
+		size++;
+		lastAdded = stored.sequence;
+
+		notifyWaiters(stored);
+		evict();
+	}
+
+	/**
+	 * registers waiter for messages with message id, or content containing all
+	 * identifiers. messages added after registration are counted
+	 *
+	 * @param messageId
+	 * @param identifiers
+	 * @return
+	 */
+	public MessageWaiter register(String messageId, List<String> identifiers) {
+		MessageWaiter waiter = new MessageWaiter(messageId, identifiers);
+		if (waiter.generatedId != null)
+			idWaiters.computeIfAbsent(waiter.generatedId, value -> ConcurrentHashMap.newKeySet()).add(waiter);
+		else
+			otherWaiters.add(waiter);
+		return waiter;
+	}
+
+	public void unregister(MessageWaiter waiter) {
+		if (waiter.generatedId != null) {
+			idWaiters.computeIfPresent(waiter.generatedId, (value, waiters) -> {
+				waiters.remove(waiter);
+				return waiters.isEmpty() ? null : waiters;
+			});
+		} else
+			otherWaiters.remove(waiter);
+	}
+
+	/**
+	 * claims messages with message id or correlation id containing message id.
+	 * claimed messages are not returned again
+	 *
+	 * @param messageId
+	 * @return messages in order of arrival
+	 */
+	public List<MessageObject> claimByMessageId(String messageId) {
+		List<MessageObject> claimed = new ArrayList<MessageObject>();
+		if (messageId.isEmpty())
+			return claimed;
+
+		for (StoredMessage stored : getCandidates(messageId)) {
+			if (stored.isIdMatch(messageId) && stored.claim())
+				claimed.add(stored.message);
+		}
+		return claimed;
+	}
+
+	/**
+	 * claims messages with content containing all identifiers. messages are
+	 * scanned once per identifiers
+	 *
+	 * @param identifiers
+	 * @return messages in order of arrival
+	 */
+	public List<MessageObject> claimByResponseIdentifiers(List<String> identifiers) {
+		List<MessageObject> claimed = new ArrayList<MessageObject>();
+		if (identifiers.isEmpty())
+			return claimed;
+
+		String key = StringUtils.join(identifiers, "\n");
+		long from = identifierCursors.getOrDefault(key, 0L);
+		long to = lastAdded;
+
+		// messages do not change. scanned messages that do not match, will not match later
+		for (StoredMessage stored : messages.subMap(from, false, to, true).values()) {
+			if (stored.isContentMatch(identifiers) && stored.claim())
+				claimed.add(stored.message);
+		}
+
+		if (identifierCursors.size() > MAX_IDENTIFIER_CURSORS)
+			identifierCursors.clear();
+		identifierCursors.merge(key, to, Math::max);
+		return claimed;
+	}
+
+	/**
+	 * messages And availability. false if message was claimed
+	 *
+	 * @return
+	 */
+	public Map<MessageObject, Boolean> getMessages() {
+		Map<MessageObject, Boolean> snapshot = new LinkedHashMap<MessageObject, Boolean>();
+		for (StoredMessage stored : messages.values())
+			snapshot.put(stored.message, !stored.isClaimed.get());
+		return snapshot;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public synchronized void clear() {
+		messages.clear();
+		ids.clear();
+		identifierCursors.clear();
+		size = 0;
+	}
+
+	/**
+	 * messages that may match message id
+	 *
+	 * @param messageId
+	 * @return
+	 */
+	private Collection<StoredMessage> getCandidates(String messageId) {
+		Set<StoredMessage> candidates = new TreeSet<StoredMessage>(
+				Comparator.comparingLong((StoredMessage stored) -> stored.sequence));
+
+		// generated ids are indexed. received ids containing the id contain the generated id
+		Matcher matcher = GENERATED_ID.matcher(messageId);
+		if (matcher.find()) {
+			Set<StoredMessage> values = ids.get(matcher.group().toLowerCase());
+			if (values != null)
+				candidates.addAll(values);
+			return candidates;
+		}
+
+		// other ids: exact And prefix match
+		for (Set<StoredMessage> values : ids.subMap(messageId, true, messageId + Character.MAX_VALUE, true).values())
+			candidates.addAll(values);
+		return candidates;
+	}
+
+	private void notifyWaiters(StoredMessage stored) {
+		for (String key : stored.keys) {
+			Set<MessageWaiter> waiters = idWaiters.get(key);
+			if (waiters == null)
+				continue;
+			for (MessageWaiter waiter : waiters) {
+				if (waiter.isMatch(stored))
+					waiter.onMessage();
+			}
+		}
+
+		for (MessageWaiter waiter : otherWaiters) {
+			if (waiter.isMatch(stored))
+				waiter.onMessage();
+		}
+	}
+
+	private void evict() {
+		int maxSize = getGlobalInt(MESSAGE_STORE_MAX_SIZE, DEFAULT_MAX_SIZE);
+		long ttlMillis = getGlobalInt(MESSAGE_STORE_TTL_SECONDS, DEFAULT_TTL_SECONDS) * 1000L;
+		long now = System.currentTimeMillis();
+
+		while (size > 0) {
+			StoredMessage oldest = messages.firstEntry().getValue();
+			if (size <= maxSize && now - oldest.receivedAt < ttlMillis)
+				break;
+
+			messages.remove(oldest.sequence);
+			for (String key : oldest.keys) {
+				ids.computeIfPresent(key, (value, stored) -> {
+					stored.remove(oldest);
+					return stored.isEmpty() ? null : stored;
+				});
+			}
+			size--;
+		}
+	}
+
+	/**
+	 * global config value. messages are added from consumer threads without test
+	 * context
+	 */
+	private static int getGlobalInt(String key, int defaultValue) {
+		String value = Config.getGlobalValue(key);
+		return StringUtils.isNumeric(value) && !value.isEmpty() ? Integer.parseInt(value) : defaultValue;
+	}
+
+	/**
+	 * message with arrival order, time And claim state
+	 */
+	private static class StoredMessage {
+		private final long sequence;
+		private final long receivedAt = System.currentTimeMillis();
+		private final MessageObject message;
+		private final List<String> keys = new ArrayList<String>();
+		private final AtomicBoolean isClaimed = new AtomicBoolean(false);
+
+		StoredMessage(long sequence, MessageObject message) {
+			this.sequence = sequence;
+			this.message = message;
+			addKeys(message.getMessageId());
+			addKeys(message.getCorrelationId());
+		}
+
+		private void addKeys(String id) {
+			if (StringUtils.isEmpty(id))
+				return;
+			if (!keys.contains(id))
+				keys.add(id);
+
+			Matcher matcher = GENERATED_ID.matcher(id);
+			while (matcher.find()) {
+				String generatedId = matcher.group().toLowerCase();
+				if (!keys.contains(generatedId))
+					keys.add(generatedId);
+			}
+		}
+
+		boolean claim() {
+			return isClaimed.compareAndSet(false, true);
+		}
+
+		boolean isIdMatch(String messageId) {
+			return StringUtils.defaultString(message.getMessageId()).contains(messageId)
+					|| StringUtils.defaultString(message.getCorrelationId()).contains(messageId);
+		}
+
+		boolean isContentMatch(List<String> identifiers) {
+			String content = StringUtils.defaultString(message.getMessage());
+			for (String identifier : identifiers) {
+				if (!content.contains(identifier))
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * test waiting for matching messages
+	 */
+	public static class MessageWaiter {
+		private final String messageId;
+		private final List<String> identifiers;
+
+		// generated id of message id, if message id is matched only
+		private final String generatedId;
+		private int received = 0;
+
+		private MessageWaiter(String messageId, List<String> identifiers) {
+			this.messageId = messageId;
+			this.identifiers = identifiers;
+
+			Matcher matcher = GENERATED_ID.matcher(messageId);
+			this.generatedId = identifiers.isEmpty() && matcher.find() ? matcher.group().toLowerCase() : null;
+		}
+
+		/**
+		 * waits until count matching messages were added since registration
+		 *
+		 * @param count
+		 * @param timeoutMillis
+		 * @return true if messages were added
+		 * @throws InterruptedException
+		 */
+		public synchronized boolean await(int count, long timeoutMillis) throws InterruptedException {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+			long remaining = timeoutMillis;
+			while (received < count && remaining > 0) {
+				wait(remaining);
+				remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			}
+			return received >= count;
+		}
+
+		private synchronized void onMessage() {
+			received++;
+			notifyAll();
+		}
+
+		private boolean isMatch(StoredMessage stored) {
+			return (!messageId.isEmpty() && stored.isIdMatch(messageId))
+					|| (!identifiers.isEmpty() && stored.isContentMatch(identifiers));
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package core.support.objects;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -16,9 +17,10 @@ import com.aventstack.extentreports.ExtentTest;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
 
-import core.apiCore.helpers.CsvReader;
+import core.apiCore.helpers.KeywordRegistry;
 import core.helpers.Helper;
 import core.support.configReader.Config;
+import core.support.configReader.ConfigScope;
 import core.support.logger.LogObject;
 import core.uiCore.driverProperties.driverType.DriverType;
 import core.uiCore.drivers.AbstractDriver;
@@ -127,10 +129,11 @@ public class TestObject {
 	public List<LogObject> testLogAll = new ArrayList<LogObject>();
 
 	public Map<String, String> languageMap = new ConcurrentHashMap<String, String>();
-	public Map<String, ServiceObject> apiMap = new ConcurrentHashMap<String, ServiceObject>();// api keywords
-	public Map<String, Object> config = new ConcurrentHashMap<String, Object>();
+	@Deprecated
+	public Map<String, ServiceObject> apiMap = new ConcurrentHashMap<String, ServiceObject>();// api keywords. deprecated: see KeywordRegistry
+	public Map<String, Object> config = new ConfigScope(); // layered config. see ConfigScope
 	public Multimap<String, String> configKeys = ArrayListMultimap.create();
-	public List<TestObject> testObjects = new ArrayList<TestObject>(); // parent test objects keeps track of child test objects
+	public List<TestObject> testObjects = Collections.synchronizedList(new ArrayList<TestObject>()); // parent test objects keeps track of child test objects
 
 	public static ThreadLocal<String> currentTestName = new ThreadLocal<String>();
 	public static ThreadLocal<String> currentTestId = new ThreadLocal<String>(); // key for testObject
@@ -188,8 +191,8 @@ public class TestObject {
 			Config.putValue(START_TIME_STRING, timeInstance, false);
 			Config.putValue(UUID_STATIC_STRING, Helper.generateUUID(), false);
 
-			// loads all the keywords for api references
-			CsvReader.getAllKeywords();
+			// loads all the keywords for api references. loaded once per suite
+			KeywordRegistry.load();
 
 			TestObject.getTestInfo().type = testType.uiTest;
 		}
@@ -209,9 +212,10 @@ public class TestObject {
 	 */
 	public static TestObject inheritParent(DriverObject driver, String testId) {
 		TestObject test = new TestObject();
-		// add config object from previous state to new test object
+		// config of previous state is the parent scope of the new test object config
+		// values are looked up from parent, new values are stored in the new test object only
 		Map<String, Object> configValue = getTestObjectInheritence(driver, testId).config;
-		test.config.putAll(configValue);
+		test.config = ConfigScope.createChild(configValue);
 
 		return test;
 	}
@@ -504,8 +508,7 @@ public class TestObject {
 	 * @return
 	 */
 	public static ServiceObject getApiDef(String key) {
-		CsvReader.getAllKeywords();
-		return TestObject.getTestInfo().apiMap.get(key);
+		return KeywordRegistry.getKeyword(key);
 	}
 
 	public TestObject withIsFirstRun(Boolean isFirstRun) {
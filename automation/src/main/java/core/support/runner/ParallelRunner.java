@@ -5,7 +5,6 @@ import java.util.Queue;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -24,7 +23,7 @@ public class ParallelRunner extends BlockJUnit4ClassRunner {
 	private static final int NUM_THREADS = CrossPlatformProperties.getParallelTests();
 	private static final AtomicInteger numTestsWaitingToStart = new AtomicInteger(0);
 
-	static ExecutorService executorService = Executors.newFixedThreadPool(NUM_THREADS);
+	static ExecutorService executorService = TestExecutors.newTestExecutor(NUM_THREADS);
 
 	private static CompletionService<Void> completionService = new ExecutorCompletionService<Void>(executorService);
 	private static Queue<Future<Void>> tasks = new LinkedList<Future<Void>>();
@@ -0,0 +1,171 @@
+package core.support.runner;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import core.support.logger.TestLog;
+import core.uiCore.driverProperties.globalProperties.CrossPlatformProperties;
+
+/**
+ * executors for the junit parallel runner, service csv rows And concurrent
+ * pagination requests
+ *
+ * platform threads: fixed pool of threadCount threads
+ * virtual threads: if global.parallel.virtualThreads.isEnabled is set And the
+ * runtime supports virtual threads (java 21+), each task runs on its own virtual
+ * thread. tasks blocked on io do not hold a platform thread. number of tasks in
+ * flight is limited by global.parallel.virtualThreads.max, unlimited if not set
+ *
+ * testng test methods And data provider rows run on threads owned by testng.
+ * testng offers no executor hook. service csv rows submit their body to the
+ * shared virtual thread executor instead, see CsvRowScheduler.runRow. the testng
+ * thread waits for the row, so testng results And retries are unchanged
+ *
+ * thread local test state (TestObject.currentTestId, AbstractDriverTestNG.step,
+ * etc) is set at the start of each test on the thread running the test, or
+ * copied to the virtual thread of the row, so it is isolated per test And
+ * released with the virtual thread
+ */
+public class TestExecutors {
+
+	// shared by service csv rows. null if not created or not supported
+	private static ExecutorService virtualThreadExecutor = null;
+	private static boolean isVirtualThreadExecutorResolved = false;
+
+	/**
+	 * executor for junit parallel runner tests or pagination requests
+	 *
+	 * @param threadCount platform thread count
+	 * @return
+	 */
+	public static ExecutorService newTestExecutor(int threadCount) {
+		if (CrossPlatformProperties.isVirtualThreads()) {
+			ExecutorService executor = newVirtualThreadExecutor();
+			if (executor != null)
+				return new LimitedExecutor(executor, CrossPlatformProperties.getVirtualThreadsMax());
+		}
+		return Executors.newFixedThreadPool(Math.max(threadCount, 1));
+	}
+
+	/**
+	 * shared virtual thread executor for service csv rows, limited by
+	 * global.parallel.virtualThreads.max. created on first use
+	 *
+	 * @return null if virtual threads are disabled or not supported
+	 */
+	public static synchronized ExecutorService getVirtualThreadExecutor() {
+		if (!CrossPlatformProperties.isVirtualThreads())
+			return null;
+
+		if (!isVirtualThreadExecutorResolved) {
+			ExecutorService executor = newVirtualThreadExecutor();
+			if (executor != null)
+				virtualThreadExecutor = new LimitedExecutor(executor, CrossPlatformProperties.getVirtualThreadsMax());
+			isVirtualThreadExecutorResolved = true;
+		}
+		return virtualThreadExecutor;
+	}
+
+	/**
+	 * shuts down the shared virtual thread executor. called at suite end
+	 */
+	public static synchronized void shutdown() {
+		if (virtualThreadExecutor != null)
+			virtualThreadExecutor.shutdown();
+		virtualThreadExecutor = null;
+		isVirtualThreadExecutorResolved = false;
+	}
+
+	/**
+	 * virtual thread per task executor. project is compiled for java 8, executor is
+	 * resolved at runtime
+	 *
+	 * @return null if not supported
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		Method method = getVirtualThreadExecutorMethod();
+		if (method == null) {
+			TestLog.ConsoleLog("virtual threads require java 21 or later. running tests on platform threads");
+			return null;
+		}
+		try {
+			return (ExecutorService) method.invoke(null);
+		} catch (Exception e) {
+			TestLog.ConsoleLog("virtual thread executor could not be created: " + e.getMessage());
+			return null;
+		}
+	}
+
+	private static Method getVirtualThreadExecutorMethod() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * limits the number of tasks running at the same time. waiting tasks block on
+	 * their own virtual thread
+	 */
+	private static class LimitedExecutor extends AbstractExecutorService {
+		private final ExecutorService executor;
+		private final Semaphore permits;
+
+		LimitedExecutor(ExecutorService executor, int maxTasks) {
+			this.executor = executor;
+			this.permits = maxTasks > 0 ? new Semaphore(maxTasks) : null;
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			if (permits == null) {
+				executor.execute(command);
+				return;
+			}
+			executor.execute(() -> {
+				try {
+					permits.acquire();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				try {
+					command.run();
+				} finally {
+					permits.release();
+				}
+			});
+		}
+
+		@Override
+		public void shutdown() {
+			executor.shutdown();
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return executor.shutdownNow();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return executor.isShutdown();
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return executor.isTerminated();
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			return executor.awaitTermination(timeout, unit);
+		}
+	}
+}
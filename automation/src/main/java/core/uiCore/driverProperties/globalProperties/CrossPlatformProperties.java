@@ -10,6 +10,8 @@ public class CrossPlatformProperties {
 
 	private static String PARALLEL_TEST_COUNT = "global.parallelTestCount";
 	private static String PARALLEL_TEST_TYPE = "global.parallelTestType";
+	private static String PARALLEL_VIRTUAL_THREADS = "global.parallel.virtualThreads.isEnabled";
+	private static String PARALLEL_VIRTUAL_THREADS_MAX = "global.parallel.virtualThreads.max";
 
 	public static String RETRY_COUNT = "global.retryCount";
 	private static String GLOBAL_TIMEOUT_SECONDS = "global.timeoutSeconds";
@@ -31,6 +33,25 @@ public class CrossPlatformProperties {
 		return Config.getIntValue(PARALLEL_TEST_COUNT);
 	}
 
+	/**
+	 * run junit parallel runner tests, service csv rows And pagination requests on
+	 * virtual threads. other testng tests are not affected. requires java 21+
+	 * 
+	 * @return
+	 */
+	public static boolean isVirtualThreads() {
+		return Config.getBooleanValue(PARALLEL_VIRTUAL_THREADS);
+	}
+
+	/**
+	 * max tasks running on virtual threads at the same time. not set: no limit
+	 * 
+	 * @return
+	 */
+	public static int getVirtualThreadsMax() {
+		return Config.getIntValue(PARALLEL_VIRTUAL_THREADS_MAX);
+	}
+
 	public static String getParallelTestType() {
 		return Config.getValue(PARALLEL_TEST_TYPE);
 	}